@@ -0,0 +1,26 @@
+package org.linesOfAction.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this package with the GC profiler, so every result also has its allocation
+ * rate (gc.alloc.rate.norm is the bytes allocated per operation).<br>
+ * Usage: BenchmarkMain [regexp of the benchmarks to run]<br>
+ * The annotation processor of jmh-generator-annprocess must run when this folder is compiled.
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : BenchmarkMain.class.getPackage().getName() + ".*")
+				.addProfiler(GCProfiler.class)
+				.warmupIterations(5)
+				.measurementIterations(5)
+				.forks(1)
+				.build();
+		new Runner(options).run();
+	}
+}
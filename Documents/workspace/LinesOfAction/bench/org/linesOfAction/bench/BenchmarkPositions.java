@@ -0,0 +1,38 @@
+package org.linesOfAction.bench;
+
+import java.util.Random;
+
+import org.linesOfAction.client.AIHelper;
+import org.linesOfAction.client.Position;
+
+/**
+ * The fixed positions the benchmarks run on: the initial position, and positions after 10, 20 and
+ * 30 moves of a seeded random game (an opening, a middlegame and an endgame), the same in every run.
+ */
+public class BenchmarkPositions {
+	private static final long SEED = 20140501L;
+	private static final int[] PLIES = { 0, 10, 20, 30 };
+
+	public static Position[] positions() {
+		Position[] positions = new Position[PLIES.length];
+		for (int i = 0; i < PLIES.length; i++) {
+			positions[i] = randomGame(PLIES[i]);
+		}
+		return positions;
+	}
+
+	// a position after plies random moves that isn't over yet
+	static Position randomGame(int plies) {
+		Random random = new Random(SEED + plies);
+		int[] moves = new int[Position.MAX_MOVES];
+		while (true) {
+			Position position = Position.initial();
+			for (int i = 0; i < plies && !AIHelper.checkOver(position); i++) {
+				position = position.play(moves[random.nextInt(position.generateMoves(moves))]);
+			}
+			if (!AIHelper.checkOver(position)) {
+				return position;
+			}
+		}
+	}
+}
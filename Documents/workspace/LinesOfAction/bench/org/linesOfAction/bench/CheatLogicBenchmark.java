@@ -0,0 +1,72 @@
+package org.linesOfAction.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.game_api.GameApi.Operation;
+import org.game_api.GameApi.Set;
+import org.game_api.GameApi.SetTurn;
+import org.game_api.GameApi.VerifyMove;
+import org.game_api.GameApi.VerifyMoveDone;
+import org.linesOfAction.client.CheatLogic;
+import org.linesOfAction.client.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link CheatLogic#verify} of the first generated move (a legal one) of each of the {@link BenchmarkPositions}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheatLogicBenchmark {
+	private static final String WHITE_ID = "98";
+	private static final String BLACK_ID = "99";
+
+	@Param({ "0", "1", "2", "3" })
+	int index;
+
+	private final CheatLogic cheatLogic = new CheatLogic();
+	private VerifyMove verifyMove;
+
+	@Setup
+	public void setup() {
+		Position position = BenchmarkPositions.positions()[index];
+		int[] moves = new int[Position.MAX_MOVES];
+		position.generateMoves(moves);
+		boolean white = position.getTurn() == Position.WHITE;
+		// the operations GamePresenter sends for a move
+		List<Operation> lastMove = position.toOperations(moves[0]);
+		lastMove.add(new Set("turn", white ? "B" : "W"));
+		lastMove.add(new Set("isDrag", "false"));
+		lastMove.add(new SetTurn(white ? BLACK_ID : WHITE_ID));
+		List<Map<String, Object>> playersInfo = new ArrayList<Map<String, Object>>();
+		playersInfo.add(playerInfo(WHITE_ID));
+		playersInfo.add(playerInfo(BLACK_ID));
+		Map<String, Integer> tokens = new HashMap<String, Integer>();
+		tokens.put(WHITE_ID, 0);
+		tokens.put(BLACK_ID, 0);
+		verifyMove = new VerifyMove(playersInfo, position.play(moves[0]).toState(), position.toState(), lastMove,
+				white ? WHITE_ID : BLACK_ID, tokens);
+	}
+
+	private static Map<String, Object> playerInfo(String playerId) {
+		Map<String, Object> info = new HashMap<String, Object>();
+		info.put("playerId", playerId);
+		return info;
+	}
+
+	@Benchmark
+	public VerifyMoveDone verify() {
+		return cheatLogic.verify(verifyMove);
+	}
+}
@@ -0,0 +1,58 @@
+package org.linesOfAction.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.linesOfAction.client.AIHelper;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The heuristic and the game-over test, on a {@link Position} (what the search uses) and on the
+ * GameApi state map (what GamePresenter and the old code paths use).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EvaluationBenchmark {
+	@Param({ "0", "1", "2", "3" })
+	int index;
+
+	private final Heuristic heuristic = new Heuristic();
+	private Position position;
+	private Map<String, Object> state;
+
+	@Setup
+	public void setup() {
+		position = BenchmarkPositions.positions()[index];
+		state = position.toState();
+	}
+
+	@Benchmark
+	public int stateValue() {
+		return heuristic.getStateValue(position);
+	}
+
+	@Benchmark
+	public int stateValueOfMap() {
+		return heuristic.getStateValue(state);
+	}
+
+	@Benchmark
+	public boolean checkOver() {
+		return AIHelper.checkOver(position);
+	}
+
+	@Benchmark
+	public boolean checkOverOfMap() {
+		return AIHelper.checkOver(state);
+	}
+}
@@ -0,0 +1,54 @@
+package org.linesOfAction.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.linesOfAction.client.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Move generation and make/unmake on the {@link BenchmarkPositions}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenerationBenchmark {
+	@Param({ "0", "1", "2", "3" })
+	int index;
+
+	private Position position;
+	private final int[] moves = new int[Position.MAX_MOVES];
+
+	@Setup
+	public void setup() {
+		position = BenchmarkPositions.positions()[index];
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return position.generateMoves(moves);
+	}
+
+	@Benchmark
+	public int generateTacticalMoves() {
+		return position.generateTacticalMoves(moves);
+	}
+
+	// every move made and taken back, as the search does at each node
+	@Benchmark
+	public void makeUnmake(Blackhole blackhole) {
+		int count = position.generateMoves(moves);
+		for (int i = 0; i < count; i++) {
+			position.makeMove(moves[i]);
+			blackhole.consume(position.getHash());
+			position.unmakeMove(moves[i]);
+		}
+	}
+}
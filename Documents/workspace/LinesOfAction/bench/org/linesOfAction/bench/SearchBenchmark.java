@@ -0,0 +1,50 @@
+package org.linesOfAction.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.linesOfAction.client.AlphaBetaPruning;
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Fixed-depth {@link AlphaBetaPruning#findBestMove} on each of the {@link BenchmarkPositions}. The
+ * engine is built once per trial and reset before every search, so each one does the same work
+ * and the allocations measured are those of the search, not of a new engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+	@Param({ "0", "1", "2", "3" })
+	int index;
+
+	@Param({ "4" })
+	int depth;
+
+	private AlphaBetaPruning engine;
+	private Position position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		position = BenchmarkPositions.positions()[index];
+		engine = new AlphaBetaPruning(new Heuristic(), new TranspositionTable(16));
+	}
+
+	// the reset only clears arrays, which is small next to a search of milliseconds
+	@Benchmark
+	public int findBestMove() {
+		engine.reset();
+		return engine.findBestMove(position, depth, Deadline.never());
+	}
+}
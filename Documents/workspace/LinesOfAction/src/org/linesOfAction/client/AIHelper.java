@@ -3,57 +3,53 @@ package org.linesOfAction.client;
 import java.util.Map;
 
 public class AIHelper {
+	private static final long NOT_COL_A = 0xfefefefefefefefeL;
+	private static final long NOT_COL_H = 0x7f7f7f7f7f7f7f7fL;
+
 	public static boolean checkOver(Map<String,Object> state){
-		if (checkOverPlayer(state,1) || checkOverPlayer(state,2))
+		return checkOver(Position.fromState(state));
+	}
+
+	// the flood fill only runs when the Euler number says the side may be connected
+	public static boolean checkOver(Position position){
+		if (isConnected(position,Position.BLACK) || isConnected(position,Position.WHITE))
 			return true;
-		else 
+		else
 			return false;
 	}
-	
-	private static boolean checkOverPlayer(Map<String,Object> state, int winner_int){
-		int board[][] = new int[8][8];
-		for (int i=0;i<8;i++)
-			for (int j=0;j<8;j++){
-				switch ((String)state.get(Character.toString((char)('1'+i)) + Character.toString((char)('A'+j)))) {
-				case "O":	board[i][j] = 0;
-							break;
-				case "B":	board[i][j] = 1;
-							break;
-				case "W":	board[i][j] = 2;
-							break;
-				default:	board[i][j] = -1;
-							break;
-				}
-			}
-		int row=-1;
-		int col=-1;
-		for (int i=0;i<8;i++)
-			for (int j=0;j<8;j++)
-				if (winner_int == board[i][j]) {row=i;col=j;break;}
-		if (col == -1) return false;
-		else traverse(board,winner_int,row,col);
-		col = -1; 
-		row = -1;
-		for (int i=0;i<8;i++)
-			for (int j=0;j<8;j++)
-				if (winner_int == board[i][j]) {row=i;col=j;break;}
-		if (col == -1) return true;
-		else return false;
+
+	// all the squares touching a piece in pieces (including the pieces themselves)
+	static long neighbours(long pieces){
+		long horizontal = pieces | ((pieces << 1) & NOT_COL_A) | ((pieces >>> 1) & NOT_COL_H);
+		return horizontal | (horizontal << 8) | (horizontal >>> 8);
+	}
+
+	// the group of pieces that contains the lowest piece
+	static long firstGroup(long pieces){
+		long group = pieces & -pieces;
+		while (true){
+			long next = neighbours(group) & pieces;
+			if (next == group) return group;
+			group = next;
+		}
+	}
+
+	// a side with no pieces is not connected
+	public static boolean isConnected(long pieces){
+		if (pieces == 0) return false;
+		return firstGroup(pieces) == pieces;
+	}
+
+	public static boolean isConnected(Position position, int color){
+		return position.mayBeConnected(color) && isConnected(position.getPieces(color));
 	}
-	
-	private static void traverse(int[][] a,int side,int row,int col){
-		if (row<0 || row>7 || col<0 || col>7) return;
-		else if (a[row][col] != side) return;
-		else {
-			a[row][col] = -1;
-			traverse(a,side,row+1,col-1);
-			traverse(a,side,row+1,col);
-			traverse(a,side,row+1,col+1);
-			traverse(a,side,row,col-1);
-			traverse(a,side,row,col+1);
-			traverse(a,side,row-1,col-1);
-			traverse(a,side,row-1,col);
-			traverse(a,side,row-1,col+1);
+
+	public static int countGroups(long pieces){
+		int count = 0;
+		while (pieces != 0){
+			pieces &= ~firstGroup(pieces);
+			count++;
 		}
+		return count;
 	}
 }
@@ -15,123 +15,178 @@ package org.linesOfAction.client;
 //limitations under the License.
 ////////////////////////////////////////////////////////////////////////////////
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.game_api.GameApi.Operation;
-import org.game_api.GameApi.Set;
-
-import com.google.common.collect.Lists;
-import com.google.gwt.user.client.Timer;
-
 /**
 * http://en.wikipedia.org/wiki/Alpha-beta_pruning<br>
 * This algorithm performs both A* and alpha-beta pruning.<br>
 * The set of possible moves is maintained ordered by the current heuristic value of each move. We
 * first use depth=1, and update the heuristic value of each move, then use depth=2, and so on until
-* we get a timeout or reach maximum depth. <br>
-* If a state has {@link TurnBasedState#whoseTurn} null (which happens in backgammon when we should
-* roll the dice), then I treat all the possible moves with equal probabilities. <br>
+* we get a timeout or reach maximum depth, and return the best move of the last iteration that
+* completed. <br>
+* Moves after the first are searched with a null window (principal variation search), and each
+* iteration starts with an aspiration window around the previous iteration's score. <br>
+* At depth 0 a quiescence search plays out captures and group-joining moves before trusting the
+* heuristic, so a leaf is never scored in the middle of an exchange. <br>
+* Interior nodes may be pruned or reduced (null move, late-move reductions, futility pruning), each
+* switched by {@link SearchConfig}. <br>
+* Interior nodes are ordered by {@link MoveOrdering} (hash move, killer moves, history). <br>
+* The search runs directly on a {@link Position}, the state map is only converted at the root. <br>
+* If an {@link OpeningBook} is set and has the root position, its move is played without a search. <br>
+* In the endgame a {@link DfpnSolver} first looks for a forced connection, and a proved win is
+* played without a search. <br>
+* Every searched position is kept in a {@link TranspositionTable}, so transpositions and the later
+* iterations get cutoffs and their best move first. <br>
+* Every completed iteration has its {@link SearchStatistics}, see {@link #getStatistics} and
+* {@link #setListener}. <br>
+* The search itself is an {@link IncrementalSearch}, which is run here to completion. The engine
+* keeps the same one for every search, so the killers, the history and the solver's table carry
+* over, and the page can run it in slices through {@link #incremental}. <br>
 * 
 * @author yzibin@google.com (Yoav Zibin)
 */
-public class AlphaBetaPruning {
-	static class TimeoutException extends RuntimeException {
-		private static final long serialVersionUID = 1L;
-	}
-
+public class AlphaBetaPruning implements SearchEngine {
 	static class MoveScore implements Comparable<MoveScore> {
-		List<Operation> move;
+		int move;
 		int score;
 
 		@Override
 		public int compareTo(MoveScore o) {
-			return o.score - score; // sort DESC (best score first)
+			return o.score > score ? 1 : o.score < score ? -1 : 0; // sort DESC (best score first)
 		}
 	}
 
-	private Heuristic heuristic;
+	// larger than any heuristic value, and safe to negate
+	static final int INFINITY = 1000000;
+
+	// the score of a connected side, see Heuristic
+	static final int WIN_SCORE = 24;
+	// half the width of the first aspiration window, in heuristic units
+	static final int ASPIRATION_WINDOW = 2;
+	// 2^16 entries (1MB)
+	static final int DEFAULT_TABLE_SIZE = 16;
+	// the deepest iteration, every ply of it (and of the quiescence search) needs room on the Position undo stack
+	public static final int MAX_DEPTH = 64;
+	// how many plies of captures and joining moves the quiescence search may add after MAX_DEPTH
+	static final int QUIESCENCE_DEPTH = 8;
+	// null-move pruning: the depth reduction, and the shallowest depth where it is tried
+	static final int NULL_MOVE_REDUCTION = 3;
+	static final int NULL_MOVE_MIN_DEPTH = 3;
+	// late-move reductions: moves from this rank on at this depth or more are reduced
+	static final int LMR_MIN_RANK = 3;
+	static final int LMR_MIN_DEPTH = 3;
+	// ... and by one more ply from this rank on
+	static final int LMR_DEEP_RANK = 10;
+	// futility pruning: how far a quiet move can raise the evaluation, indexed by the depth left
+	static final int[] FUTILITY_MARGIN = { 0, 2, 5 };
+	// the endgame starts when there are this many pieces left on the board
+	static final int ENDGAME_PIECES = 18;
+
+	private final IncrementalSearch search;
 
 	public AlphaBetaPruning(Heuristic heuristic) {
-		this.heuristic = heuristic;
+		this(heuristic, new TranspositionTable(DEFAULT_TABLE_SIZE));
 	}
-	
-	private Map<String,Object> addMove(Map<String, Object> state, List<Operation> move){
-		Map<String,Object> ret = new HashMap<String, Object>(state);
-		ret.put(((Set)move.get(0)).getKey(),"0");
-		ret.put(((Set)move.get(1)).getKey(),((Set)move.get(1)).getValue());
-		return ret;
+
+	public AlphaBetaPruning(Heuristic heuristic, TranspositionTable table) {
+		search = new IncrementalSearch(heuristic, table);
 	}
 
-	public List<Operation> findBestMove(Map<String,Object> state, int depth, Timer timer) {
-		boolean isWhite = state.get("turn").equals("W") ? true : false;
-		// Do iterative deepening (A*), and slow get better heuristic values for the states.
-		List<MoveScore> scores = Lists.newArrayList();
-		{
-			Iterable<List<Operation>> possibleMoves = heuristic.getOrderedMoves(state);
-			for (List<Operation> move : possibleMoves) {
-				MoveScore score = new MoveScore();
-				score.move = move;
-				score.score = Integer.MIN_VALUE;
-				scores.add(score);
-			}
-		}
+	/**
+	 * Makes this search a helper of a parallel (Lazy SMP) search: several searches of the same root
+	 * share one table, and helpers start from a different root move and skip every other first
+	 * iteration so that they fill the table with different parts of the tree.
+	 */
+	public void setHelperIndex(int helperIndex) {
+		search.setHelperIndex(helperIndex);
+	}
 
-		try {
-			for (int i = 0; i < depth; i++) {
-				for (MoveScore moveScore : scores) {
-					List<Operation> move = moveScore.move;
-					int score = findMoveScore(addMove(state,move), i, Integer.MIN_VALUE, Integer.MAX_VALUE, timer);
-					if (!isWhite) {
-						// the scores are from the point of view of the white, so for black we need to switch.
-						score = -score;
-					}
-					moveScore.score = score;
-				}
-				Collections.sort(scores); // This will give better pruning on the next iteration.
-			}
-		} catch (TimeoutException e) {
-			// OK, it should happen
-		}
+	public void setConfig(SearchConfig config) {
+		search.setConfig(config);
+	}
 
-		Collections.sort(scores);
-		return scores.get(0).move;
+	public void setListener(SearchListener listener) {
+		search.setListener(listener);
+	}
+
+	public void setBook(OpeningBook book) {
+		search.setBook(book);
 	}
 
 	/**
-	 * If we get a timeout, then the score is invalid.
+	 * Forgets what the earlier searches learned (the table, the killers and history, the solver's
+	 * table), so the next search is that of a new engine, without allocating one.
 	 */
-	private int findMoveScore(Map<String,Object> state, int depth, int alpha, int beta, Timer timer) throws TimeoutException {
-		/*if (!timer.isRunning()) {
-			throw new TimeoutException();
-		}*/
-		System.out.println("search!");
-		if (depth == 0 || AIHelper.checkOver(state)) {
-			return heuristic.getStateValue(state);
+	public void reset() {
+		search.reset();
+	}
+
+	// the search of this engine, to run in slices
+	IncrementalSearch incremental() {
+		return search;
+	}
+
+	@Override
+	public int findBestMove(Position root, Deadline deadline) {
+		return findBestMove(root, MAX_DEPTH, deadline);
+	}
+
+	public int findBestMove(Position root, int depth, Deadline deadline) {
+		return search.findBestMove(root, depth, deadline);
+	}
+
+	/**
+	 * The score of the move returned by the last {@link #findBestMove}, from the point of view of
+	 * the side to move at the root. It is 0 if no iteration completed (a book move, a single legal
+	 * move or an early timeout).
+	 */
+	public int getScore() {
+		return search.getScore();
+	}
+
+	/**
+	 * The counts of the last iteration that completed in the last {@link #findBestMove}, empty if
+	 * none did.
+	 */
+	public SearchStatistics getStatistics() {
+		return search.getStatistics();
+	}
+
+	/**
+	 * The line from the root that starts with {@code bestMove} and follows the hash moves, at most
+	 * {@code depth} moves. It stops where the table lost the position or its move isn't legal.
+	 */
+	static int[] principalVariation(TranspositionTable table, Position root, int bestMove, int depth) {
+		Position position = root.copy();
+		int[] moves = new int[Position.MAX_MOVES];
+		int[] line = new int[depth];
+		int length = 0;
+		for (int move = bestMove; move != 0 && length < depth; move = TranspositionTable.move(table.probe(position.getHash()))) {
+			boolean legal = false;
+			int count = position.generateMoves(moves);
+			for (int i = 0; i < count && !legal; i++) {
+				legal = moves[i] == move;
+			}
+			if (!legal || AIHelper.checkOver(position)) {
+				break;
+			}
+			position.makeMove(move);
+			line[length++] = move;
+		}
+		int[] pv = new int[length];
+		System.arraycopy(line, 0, pv, 0, length);
+		return pv;
+	}
+
+	// moves the best move found by an earlier search of this position to the front
+	static void orderHashMove(int[] moves, int count, int hashMove) {
+		if (hashMove == 0) {
+			return;
 		}
-		String color = (String)state.get("turn");
-		int scoreSum = 0;
-		int count = 0;
-		Iterable<List<Operation>> possibleMoves = heuristic.getOrderedMoves(state);
-		for (List<Operation> move : possibleMoves) {
-			count++;
-			int childScore = findMoveScore(addMove(state,move), depth - 1, alpha, beta, timer);
-			if (color == null) {
-				scoreSum += childScore;
-			} else if (color.equals("W")) {
-				alpha = Math.max(alpha, childScore);
-				if (beta <= alpha) {
-					break;
-				}
-			} else {
-				beta = Math.min(beta, childScore);
-				if (beta <= alpha) {
-					break;
-				}
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == hashMove) {
+				moves[i] = moves[0];
+				moves[0] = hashMove;
+				return;
 			}
 		}
-		return color == null ? scoreSum / count : color.equals("W") ? alpha : beta;
 	}
 }
@@ -0,0 +1,34 @@
+package org.linesOfAction.client;
+
+/**
+ * Table storage on the heap, the only kind GWT can run.
+ */
+public class ArrayStorage implements TableStorage {
+	private final long[] longs;
+
+	public ArrayStorage(int size) {
+		longs = new long[size];
+	}
+
+	@Override
+	public long size() {
+		return longs.length;
+	}
+
+	@Override
+	public long get(long index) {
+		return longs[(int) index];
+	}
+
+	@Override
+	public void set(long index, long value) {
+		longs[(int) index] = value;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < longs.length; i++) {
+			longs[i] = 0L;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package org.linesOfAction.client;
+
+/**
+ * The time the AI may spend on a search. It only reads {@link System#currentTimeMillis}
+ * (through a {@link Clock}), so it works both in GWT and on the JVM.<br>
+ * A deadline can also be stopped early, e.g. when the search is no longer needed.
+ */
+public class Deadline {
+	public interface Clock {
+		long currentTimeMillis();
+	}
+
+	public static final Clock SYSTEM_CLOCK = new Clock() {
+		@Override
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	private final Clock clock;
+	private final long end;
+	private volatile boolean stopped;
+
+	public Deadline(Clock clock, long end) {
+		this.clock = clock;
+		this.end = end;
+	}
+
+	public static Deadline after(long millis) {
+		return new Deadline(SYSTEM_CLOCK, SYSTEM_CLOCK.currentTimeMillis() + millis);
+	}
+
+	public static Deadline never() {
+		return new Deadline(SYSTEM_CLOCK, Long.MAX_VALUE);
+	}
+
+	// the clock the deadline is read from, so the time of a search agrees with it
+	public Clock getClock() {
+		return clock;
+	}
+
+	public boolean isExpired() {
+		return stopped || clock.currentTimeMillis() >= end;
+	}
+
+	public long remainingMillis() {
+		return stopped ? 0 : Math.max(0, end - clock.currentTimeMillis());
+	}
+
+	public void stop() {
+		stopped = true;
+	}
+}
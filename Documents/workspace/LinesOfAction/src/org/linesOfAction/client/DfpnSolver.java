@@ -0,0 +1,225 @@
+package org.linesOfAction.client;
+
+/**
+ * Depth-first proof-number search (Nagai, 2002): proves or disproves that the side to move can force
+ * a connection.<br>
+ * Every position has a proof number (how many leaves must still be proved for the side to move to
+ * win) and a disproof number. In negamax form the proof number of a position is the smallest
+ * disproof number of its children, and its disproof number the sum of their proof numbers. The
+ * search always goes to the most proving child, and comes back only when a threshold is reached,
+ * so it needs memory for its table only.<br>
+ * A position where both sides are connected, a repetition and a line longer than the undo stack
+ * count as failures for the side being proved, so the table also depends on that side.<br>
+ * The search stops after a node budget or at a deadline, and then the result is UNKNOWN.
+ */
+public class DfpnSolver {
+	public static final int UNKNOWN = 0;
+	public static final int WIN = 1;
+	public static final int LOSS = 2;
+
+	static class BudgetException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	static final int INFINITY = 100000000;
+	// 2^18 entries (4MB)
+	static final int DEFAULT_TABLE_SIZE = 18;
+	private static final int NODES_PER_CLOCK_CHECK = 1024;
+	// xored into the keys when black is the side being proved
+	private static final long BLACK_SALT = 0x6A09E667F3BCC908L;
+
+	// the result of a child for the side to move in it, NONE if it is not over
+	private static final int NONE = 0;
+	private static final int CHILD_WIN = 1;
+	private static final int CHILD_LOSS = 2;
+
+	private final long[] keys;
+	private final int[] proofs;
+	private final int[] disproofs;
+	private final int mask;
+
+	private final int[][] moves = new int[Position.MAX_PLY][Position.MAX_MOVES];
+	private final long[][] childKeys = new long[Position.MAX_PLY][Position.MAX_MOVES];
+	private final int[][] childResults = new int[Position.MAX_PLY][Position.MAX_MOVES];
+	private final long[] pathKeys = new long[Position.MAX_PLY];
+
+	private int rootColor;
+	private long salt;
+	private long nodes;
+	private long budget;
+	private Deadline deadline;
+	private int bestMove;
+
+	public DfpnSolver() {
+		this(DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * The table has 2^{@code log2Size} entries.
+	 */
+	public DfpnSolver(int log2Size) {
+		keys = new long[1 << log2Size];
+		proofs = new int[1 << log2Size];
+		disproofs = new int[1 << log2Size];
+		mask = (1 << log2Size) - 1;
+	}
+
+	public int solve(Position root, long budget) {
+		return solve(root, budget, Deadline.never());
+	}
+
+	/**
+	 * Returns WIN if the side to move in {@code root} can force a connection, LOSS if it can't, and
+	 * UNKNOWN if neither was proved within {@code budget} nodes or before the deadline.
+	 */
+	public int solve(Position root, long budget, Deadline deadline) {
+		this.budget = budget;
+		this.deadline = deadline;
+		nodes = 0;
+		bestMove = 0;
+		rootColor = root.getTurn();
+		salt = rootColor == Position.BLACK ? BLACK_SALT : 0L;
+		Position position = root.copy();
+		int result = result(position);
+		if (result != NONE) {
+			return result == CHILD_WIN ? WIN : LOSS;
+		}
+		try {
+			mid(position, INFINITY, INFINITY);
+		} catch (BudgetException e) {
+			return UNKNOWN;
+		}
+		long key = position.getHash() ^ salt;
+		int index = (int) key & mask;
+		if (keys[index] != key) {
+			// the root entry was replaced, the result is not known anymore
+			return UNKNOWN;
+		}
+		if (proofs[index] == 0) {
+			// the buffers of ply 0 still hold the root's children
+			int count = position.generateMoves(moves[0]);
+			for (int i = 0; i < count; i++) {
+				if (childDisproof(0, i) == 0) {
+					bestMove = moves[0][i];
+					break;
+				}
+			}
+			return WIN;
+		}
+		return disproofs[index] == 0 ? LOSS : UNKNOWN;
+	}
+
+	// the winning move of the last solve that returned WIN
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = 0L;
+		}
+	}
+
+	// multiple iterative deepening: searches position until its numbers reach one of the thresholds
+	private void mid(Position position, int proofThreshold, int disproofThreshold) {
+		if (++nodes > budget || (nodes % NODES_PER_CLOCK_CHECK == 0 && deadline.isExpired())) {
+			throw new BudgetException();
+		}
+		int ply = position.getPly();
+		int[] possibleMoves = moves[ply];
+		int count = position.generateMoves(possibleMoves);
+		pathKeys[ply] = position.getHash();
+		for (int i = 0; i < count; i++) {
+			position.makeMove(possibleMoves[i]);
+			childKeys[ply][i] = position.getHash() ^ salt;
+			childResults[ply][i] = isRepetition(position) || position.getPly() >= Position.MAX_PLY - 1
+					? failure(position) : result(position);
+			position.unmakeMove(possibleMoves[i]);
+		}
+		while (true) {
+			int proof = INFINITY;
+			int disproof = 0;
+			int best = -1;
+			int bestProof = 0;
+			int secondDisproof = INFINITY;
+			for (int i = 0; i < count; i++) {
+				int childProof = childProof(ply, i);
+				int childDisproof = childDisproof(ply, i);
+				if (childDisproof < proof) {
+					secondDisproof = proof;
+					proof = childDisproof;
+					best = i;
+					bestProof = childProof;
+				} else if (childDisproof < secondDisproof) {
+					secondDisproof = childDisproof;
+				}
+				disproof = Math.min(disproof + childProof, INFINITY);
+			}
+			// a side that can't move has lost
+			if (proof >= proofThreshold || disproof >= disproofThreshold || count == 0) {
+				store(position.getHash() ^ salt, count == 0 ? INFINITY : proof, count == 0 ? 0 : disproof);
+				return;
+			}
+			position.makeMove(possibleMoves[best]);
+			mid(position, Math.min(disproofThreshold - disproof + bestProof, INFINITY), Math.min(proofThreshold, secondDisproof + 1));
+			position.unmakeMove(possibleMoves[best]);
+		}
+	}
+
+	// the result of the game for the side to move, a position where both sides are connected fails
+	private int result(Position position) {
+		int turn = position.getTurn();
+		boolean connected = AIHelper.isConnected(position, turn);
+		boolean opponentConnected = AIHelper.isConnected(position, 3 - turn);
+		if (connected && opponentConnected) {
+			return failure(position);
+		}
+		return connected ? CHILD_WIN : opponentConnected ? CHILD_LOSS : NONE;
+	}
+
+	// a position the side being proved can't win from, and its opponent can't lose
+	private int failure(Position position) {
+		return position.getTurn() == rootColor ? CHILD_LOSS : CHILD_WIN;
+	}
+
+	// the same position with the same side to move earlier on the current line
+	private boolean isRepetition(Position position) {
+		for (int ply = position.getPly() - 2; ply >= 0; ply -= 2) {
+			if (pathKeys[ply] == position.getHash()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int childProof(int ply, int i) {
+		int result = childResults[ply][i];
+		if (result != NONE) {
+			return result == CHILD_WIN ? 0 : INFINITY;
+		}
+		long key = childKeys[ply][i];
+		int index = (int) key & mask;
+		return keys[index] == key ? proofs[index] : 1;
+	}
+
+	private int childDisproof(int ply, int i) {
+		int result = childResults[ply][i];
+		if (result != NONE) {
+			return result == CHILD_LOSS ? 0 : INFINITY;
+		}
+		long key = childKeys[ply][i];
+		int index = (int) key & mask;
+		return keys[index] == key ? disproofs[index] : 1;
+	}
+
+	private void store(long key, int proof, int disproof) {
+		int index = (int) key & mask;
+		keys[index] = key;
+		proofs[index] = proof;
+		disproofs[index] = disproof;
+	}
+}
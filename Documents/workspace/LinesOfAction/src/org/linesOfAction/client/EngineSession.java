@@ -0,0 +1,177 @@
+package org.linesOfAction.client;
+
+/**
+ * The AI of one game. The same engine searches every turn, so what it learned on the last turn
+ * carries over: the transposition table and the history of {@link AlphaBetaPruning}, or the
+ * subtree of {@link MonteCarloTreeSearch} under the moves that were played.<br>
+ * {@link GamePresenter} starts a new session with every new game.<br>
+ * Between its turns the session can ponder, in the short slices of {@link #ponder}: it guesses
+ * the opponent's reply with a search of {@link #GUESS_MILLIS}, and then searches the position
+ * after it. An alpha-beta session steps one search through the slices, a Monte Carlo session
+ * grows its tree a little in each. If the guess was right the pondered move is played at once
+ * (after searching the rest of the turn's time, if the pondering was shorter). Otherwise it is
+ * dropped, and only what the engine learned meanwhile is kept.
+ */
+public class EngineSession {
+	// pondering stops after this long, in case the opponent is away
+	static final long MAX_PONDER_MILLIS = 60000;
+	// the first slices guess the opponent's reply, until they have searched this long
+	static final long GUESS_MILLIS = 100;
+
+	private final SearchEngine engine;
+	private int turns;
+
+	// the position after our move, the guessed reply is searched from it
+	private Position ponderRoot;
+	// the position after the guessed reply, null until it is known
+	private Position ponderPosition;
+	private int ponderMove;
+	private long ponderMillis;
+	// the alpha-beta search of ponderRoot and then of ponderPosition, null for other engines
+	private IncrementalSearch ponderSearch;
+	private int ponderHits;
+
+	public EngineSession(SearchEngine engine) {
+		this.engine = engine;
+	}
+
+	public static EngineSession alphaBeta() {
+		return new EngineSession(new AlphaBetaPruning(new Heuristic()));
+	}
+
+	public static EngineSession monteCarlo() {
+		return new EngineSession(new MonteCarloTreeSearch(new Heuristic()));
+	}
+
+	public int findBestMove(Position position, Deadline deadline) {
+		turns++;
+		boolean hit = ponderMove != 0 && position.equals(ponderPosition);
+		int move = ponderMove;
+		long pondered = ponderMillis;
+		stopPondering();
+		if (!hit) {
+			return engine.findBestMove(position, deadline);
+		}
+		ponderHits++;
+		long remaining = deadline.remainingMillis() - pondered;
+		return remaining > 0 ? engine.findBestMove(position, Deadline.after(remaining)) : move;
+	}
+
+	/**
+	 * Like {@link #findBestMove}, but the search runs in the calls to {@link IncrementalSearch#step},
+	 * so GWT's single thread is free between them. Only an alpha-beta session can do this. A pondered
+	 * move is played the same way: the search is already done, or only gets the rest of the time.
+	 */
+	public IncrementalSearch startIncremental(Position position, Deadline deadline) {
+		turns++;
+		boolean hit = ponderMove != 0 && position.equals(ponderPosition);
+		int move = ponderMove;
+		long pondered = ponderMillis;
+		stopPondering();
+		IncrementalSearch search = ((AlphaBetaPruning) engine).incremental();
+		if (!hit) {
+			search.start(position, deadline);
+			return search;
+		}
+		ponderHits++;
+		long remaining = deadline.remainingMillis() - pondered;
+		if (remaining > 0) {
+			search.start(position, Deadline.after(remaining));
+		} else {
+			search.finish(move);
+		}
+		return search;
+	}
+
+	/**
+	 * Starts pondering after our move, which leads to {@code position}. The pondering goes on in
+	 * calls to {@link #ponder} until the next {@link #findBestMove} or {@link #stopPondering}.
+	 */
+	public void startPondering(Position position) {
+		stopPondering();
+		ponderRoot = position.copy();
+		startPonderSearch(ponderRoot);
+	}
+
+	/**
+	 * Ponders for about {@code millis}, and returns false when there is nothing (left) to ponder.
+	 * The time of every slice counts as pondered, that of the guess too.
+	 */
+	public boolean ponder(long millis) {
+		if (ponderRoot == null || ponderMillis >= MAX_PONDER_MILLIS || AIHelper.checkOver(ponderRoot)) {
+			return false;
+		}
+		long start = Deadline.SYSTEM_CLOCK.currentTimeMillis();
+		boolean guessing = ponderPosition == null;
+		int move = ponderStep(guessing ? ponderRoot : ponderPosition, millis);
+		ponderMillis += Deadline.SYSTEM_CLOCK.currentTimeMillis() - start;
+		boolean done = ponderSearch != null && ponderSearch.isDone();
+		if (!guessing) {
+			ponderMove = move;
+			return !done;
+		}
+		if (ponderMillis < GUESS_MILLIS && !done) {
+			return true;
+		}
+		if (move == 0) {
+			return false;
+		}
+		// the reply we would play in the opponent's place
+		ponderPosition = ponderRoot.play(move);
+		if (AIHelper.checkOver(ponderPosition)) {
+			return false;
+		}
+		startPonderSearch(ponderPosition);
+		return true;
+	}
+
+	// an alpha-beta search is started once, so the history isn't aged and the iterations don't
+	// start over every slice
+	private void startPonderSearch(Position position) {
+		if (engine instanceof AlphaBetaPruning) {
+			ponderSearch = ((AlphaBetaPruning) engine).incremental();
+			ponderSearch.start(position, Deadline.never());
+		}
+	}
+
+	// one slice of the search of position, which goes on from the last slice; its best move so far
+	private int ponderStep(Position position, long millis) {
+		if (ponderSearch == null) {
+			// a Monte Carlo search keeps its tree, so it goes on from what the last slices grew
+			return engine.findBestMove(position, Deadline.after(millis));
+		}
+		ponderSearch.step(millis);
+		return ponderSearch.getBestMove();
+	}
+
+	public void stopPondering() {
+		ponderRoot = null;
+		ponderPosition = null;
+		ponderMove = 0;
+		ponderMillis = 0;
+		ponderSearch = null;
+	}
+
+	// the guessed position, null until the first slice has guessed it
+	Position getPonderPosition() {
+		return ponderPosition;
+	}
+
+	public boolean isPondering() {
+		return ponderRoot != null;
+	}
+
+	// how many turns were played from a pondered search
+	public int getPonderHits() {
+		return ponderHits;
+	}
+
+	public SearchEngine getEngine() {
+		return engine;
+	}
+
+	// how many moves the session has searched in this game
+	public int getTurns() {
+		return turns;
+	}
+}
@@ -0,0 +1,100 @@
+package org.linesOfAction.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * The page's side of the engine worker (see org.linesOfAction.worker): the search runs in the
+ * worker's own thread and the page only gets the messages of {@link WorkerProtocol}, so the
+ * animations and the input never wait for the AI.<br>
+ * A worker handles one message at a time and doesn't read the next one while it searches, so a
+ * search is cancelled by terminating the worker and starting a new one (which starts cold).
+ * Pondering needs no cancelling: the worker ponders in short slices and reads its messages
+ * between them, so the next search finds what the pondering learned.
+ */
+public class EngineWorker {
+	public interface Listener {
+		// statistics is the JSON of the iteration's SearchStatistics
+		void onProgress(int depth, int move, int score, String statistics);
+
+		void onBestMove(int move);
+	}
+
+	private final String url;
+	private JavaScriptObject worker;
+	private Listener listener;
+	private int searchId;
+
+	public EngineWorker(String url) {
+		this.url = url;
+		worker = create(url);
+	}
+
+	public static native boolean isSupported() /*-{
+		return !!$wnd.Worker;
+	}-*/;
+
+	/**
+	 * Searches {@code position} for {@code millis} in the worker, the listener hears the answers.
+	 */
+	public void search(Position position, long millis, Listener listener) {
+		cancel();
+		this.listener = listener;
+		post(worker, WorkerProtocol.search(++searchId, position, millis));
+	}
+
+	// the worker ponders on position, the one after the AI's move, until its next message
+	public void ponder(Position position) {
+		cancel();
+		post(worker, WorkerProtocol.ponder(++searchId, position));
+	}
+
+	// the worker starts a new engine session
+	public void newGame() {
+		cancel();
+		post(worker, WorkerProtocol.newGame());
+	}
+
+	public boolean isSearching() {
+		return listener != null;
+	}
+
+	public void cancel() {
+		if (listener != null) {
+			listener = null;
+			terminate(worker);
+			worker = create(url);
+		}
+	}
+
+	private void onMessage(String message) {
+		String[] fields = WorkerProtocol.parse(message);
+		if (listener == null || WorkerProtocol.id(fields) != searchId) {
+			// the answer of a search that was cancelled
+			return;
+		}
+		if (WorkerProtocol.PROGRESS.equals(fields[0])) {
+			listener.onProgress(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), fields[5]);
+		} else if (WorkerProtocol.BEST_MOVE.equals(fields[0])) {
+			Listener done = listener;
+			listener = null;
+			done.onBestMove(WorkerProtocol.move(fields));
+		}
+	}
+
+	private native JavaScriptObject create(String url) /*-{
+		var self = this;
+		var worker = new $wnd.Worker(url);
+		worker.onmessage = $entry(function(event) {
+			self.@org.linesOfAction.client.EngineWorker::onMessage(Ljava/lang/String;)(event.data);
+		});
+		return worker;
+	}-*/;
+
+	private static native void post(JavaScriptObject worker, String message) /*-{
+		worker.postMessage(message);
+	}-*/;
+
+	private static native void terminate(JavaScriptObject worker) /*-{
+		worker.terminate();
+	}-*/;
+}
@@ -13,7 +13,9 @@ import java.util.List;
 import java.util.HashMap;
 import java.util.ArrayList;
 
-import com.google.gwt.user.client.Timer;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.user.client.Window;
 
 public class GamePresenter {
@@ -59,6 +61,24 @@ public class GamePresenter {
 	private boolean initialFlag; 
 	private boolean flag = true;
 	
+	// the AI keeps its engine (and what it learned) for the whole game
+	private EngineSession engineSession;
+	// the AI searches in a web worker when the browser has them, so the page never waits for it
+	private EngineWorker engineWorker;
+	// the search running on the page without a worker, null if there is none
+	private IncrementalSearch aiSearch;
+	
+	// the AI thinking time when the container doesn't set a time limit for the turn
+	static final int DEFAULT_AI_MILLIS = 2000;
+	// part of the turn kept back for sending the move
+	static final int AI_SAFETY_MILLIS = 500;
+	// without a worker the AI searches (and ponders) this long at a time, and then lets the
+	// browser draw a frame
+	static final int AI_SLICE_MILLIS = 8;
+	static final int AI_SLICE_DELAY_MILLIS = 1;
+	// the script the LinesOfActionWorker module compiles to
+	static final String WORKER_URL = "linesofactionworker/linesofactionworker.worker.js";
+	
 	public GamePresenter(View view, Container container) {
 		this.view = view;
 		this.container = container;
@@ -67,6 +87,9 @@ public class GamePresenter {
 
 	
 	public void updateUI(UpdateUI updateUI) {
+		// a search for an older state is of no use anymore
+		if (engineWorker != null) engineWorker.cancel();
+		aiSearch = null;
 		origin = "";
 		destination = "";
 		
@@ -96,6 +119,7 @@ public class GamePresenter {
 		}
 		
 		if (initialFlag){ //initial state
+			newGame();
 			view.setInitialState(yourColor);
 			board = new int[][]{
 		    		  { 0, 1, 1, 1, 1, 1, 1, 0 },
@@ -125,19 +149,8 @@ public class GamePresenter {
 					return;
 				}
 				
-				Heuristic gameHeuristic = new Heuristic();
-				AlphaBetaPruning pruning = new AlphaBetaPruning(gameHeuristic);
-				List<Operation> moves = pruning.findBestMove(newState,2,new Timer(){
-					public void run(){
-						System.out.println("timer start");
-					}
-				});
-				origin = ((Set)moves.get(0)).getKey();
-				destination = ((Set)moves.get(1)).getKey();
-				String winnerId = checkWin(board,origin,destination);
-				if (Integer.parseInt(winnerId)>=0) makeMoveWin(winnerId,false); 
-				else makeMoveContinue(false); 
-				
+				// the AI moves first in a new game
+				startAiTurn(Position.fromState(newState),getAiDeadline(updateUI));
 				return;
 			}
 		}
@@ -193,19 +206,7 @@ public class GamePresenter {
 				if (!isMyTurn())
 					return;
 				
-				Heuristic gameHeuristic = new Heuristic();
-				AlphaBetaPruning pruning = new AlphaBetaPruning(gameHeuristic);
-				List<Operation> moves = pruning.findBestMove(newState,2,new Timer(){
-					public void run(){
-						System.out.println("timer start");
-					}
-				});
-				origin = ((Set)moves.get(0)).getKey();
-				destination = ((Set)moves.get(1)).getKey();
-				String winnerId = checkWin(board,origin,destination);
-				if (Integer.parseInt(winnerId)>=0) makeMoveWin(winnerId,false); 
-				else makeMoveContinue(false); 
-				
+				startAiTurn(Position.fromState(newState),getAiDeadline(updateUI));
 				return;
 			}
 			
@@ -227,6 +228,88 @@ public class GamePresenter {
 		}
 	}
 	 
+	/**
+	 * The AI searches position and makes its move when the search is done: in the worker if there is
+	 * one, else on the page in short slices, so the animations go on between them.<br>
+	 * After its move the AI ponders where it searched, until the opponent's move comes.
+	 */
+	private void startAiTurn(final Position position, Deadline deadline){
+		if (GWT.isClient() && EngineWorker.isSupported()){
+			if (engineWorker == null) engineWorker = new EngineWorker(GWT.getHostPageBaseURL() + WORKER_URL);
+			engineWorker.search(position,deadline.remainingMillis(),new EngineWorker.Listener() {
+				@Override
+				public void onProgress(int depth, int move, int score, String statistics) {
+				}
+
+				@Override
+				public void onBestMove(int move) {
+					if (makeAiMove(position,move)) engineWorker.ponder(position.play(move));
+				}
+			});
+			return;
+		}
+		if (engineSession == null) engineSession = EngineSession.alphaBeta();
+		final IncrementalSearch search = engineSession.startIncremental(position,deadline);
+		aiSearch = search;
+		Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+			@Override
+			public boolean execute() {
+				// a newer state cancelled the search
+				if (search != aiSearch) return false;
+				if (search.step(AI_SLICE_MILLIS)) return true;
+				aiSearch = null;
+				int move = search.getBestMove();
+				if (makeAiMove(position,move)) startPondering(position.play(move));
+				return false;
+			}
+		}, AI_SLICE_DELAY_MILLIS);
+	}
+	
+	// whoever moves first, the AI forgets the last game and stops pondering on it
+	private void newGame(){
+		engineSession = null;
+		if (engineWorker != null) engineWorker.newGame();
+	}
+	
+	// returns true if the game goes on after move
+	private boolean makeAiMove(Position position, int move){
+		origin = Position.squareName(Position.moveFrom(move));
+		destination = Position.squareName(Position.moveTo(move));
+		String winnerId = checkWin(board,origin,destination);
+		if (Integer.parseInt(winnerId)>=0){
+			makeMoveWin(winnerId,false);
+			return false;
+		}
+		makeMoveContinue(false);
+		return true;
+	}
+	 
+	// the AI ponders on the opponent's time, in slices as short as those of its search
+	private void startPondering(Position afterMove){
+		final EngineSession session = engineSession;
+		session.startPondering(afterMove);
+		Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+			@Override
+			public boolean execute() {
+				// a new game has a new session
+				return session == engineSession && session.ponder(AI_SLICE_MILLIS);
+			}
+		}, AI_SLICE_DELAY_MILLIS);
+	}
+	 
+	// the AI uses the time limit the container set for this turn, if there is one
+	Deadline getAiDeadline(UpdateUI updateUI){
+		int millis = DEFAULT_AI_MILLIS;
+		List<Operation> lastMove = updateUI.getLastMove();
+		if (lastMove != null){
+			for (Operation operation : lastMove){
+				if (operation instanceof SetTurn && ((SetTurn)operation).getNumberOfSecondsForTurn() > 0)
+					millis = Math.max(((SetTurn)operation).getNumberOfSecondsForTurn() * 1000 - AI_SAFETY_MILLIS, AI_SAFETY_MILLIS);
+			}
+		}
+		return Deadline.after(millis);
+	}
+	 
 	private void choosePosition(int flag, int color){
 		if (1 == flag) {
 			view.resetGraphics(board);
@@ -398,107 +481,16 @@ public class GamePresenter {
 	}
 	
 	private ArrayList<String> getPossibleDestinations(String position){
-		int row = position.charAt(0)-'1';
-		int col = position.charAt(1)-'A'; 
-		int color = board[row][col];
+		int from = Position.square(position);
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = Position.fromBoard(board,board[from/8][from%8]).generateMoves(from,moves,0);
 		ArrayList<String> list = new ArrayList<String>();
 		
 		// self
 		list.add(position);
 		
-		// horizental
-		int hori_count=0;
-		for (int i=0;i<8;i++){
-			if (board[row][i] == 1 || board[row][i] == 2) hori_count++;
-		}
-		for (int i=col-1;i>=0;i--){
-			if (col - i <= hori_count && board[row][i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row)));
-				str.append((char)('A'+i));
-				list.add(str.toString());
-			}
-			if (board[row][i] == 3-color) break;
-		}
-		for (int i=col+1;i<8;i++){
-			if (i - col <= hori_count && board[row][i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row)));
-				str.append((char)('A'+i));
-				list.add(str.toString());
-			}
-			if (board[row][i] == 3-color) break;
-		}
-		
-		// vertical
-		int verti_count=0;
-		for (int i=0;i<8;i++){
-			if (board[i][col] == 1 || board[i][col] == 2) verti_count++;
-		}
-		for (int i=row-1;i>=0;i--){
-			if (row - i <= verti_count && board[i][col] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+i)));
-				str.append((char)('A'+col));
-				list.add(str.toString());
-			}
-			if (board[i][col] == 3-color) break;
-		}
-		for (int i=row+1;i<8;i++){
-			if (i - row <= verti_count && board[i][col] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+i)));
-				str.append((char)('A'+col));
-				list.add(str.toString());
-			}
-			if (board[i][col] == 3-color) break;
-		}
-		
-		// diagonal /
-		int diag_count=0;
-		for (int i=0;col+i<8 && row+i<8;i++){
-			if (board[row+i][col+i] == 1 || board[row+i][col+i] == 2) diag_count++;
-		}
-		for (int i=1;col-i>=0 && row-i>=0;i++){
-			if (board[row-i][col-i] == 1 || board[row-i][col-i] == 2) diag_count++;
-		}
-		for (int i=1;col+i<8 && row+i<8;i++){
-			if (i<=diag_count && board[row+i][col+i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row+i)));
-				str.append((char)('A'+col+i));
-				list.add(str.toString());
-			}
-			if (board[row+i][col+i] == 3 - color) break;
-		}
-		for (int i=1;col-i>=0 && row-i>=0;i++){
-			if (i<=diag_count && board[row-i][col-i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row-i)));
-				str.append((char)('A'+col-i));
-				list.add(str.toString());
-			}
-			if (board[row-i][col-i] == 3 - color) break;
-		}
-		
-		// diagonal \
-		diag_count=0;
-		for (int i=0;col-i>=0 && row+i<8;i++){
-			if (board[row+i][col-i] == 1 || board[row+i][col-i] == 2) diag_count++;
-		}
-		for (int i=1;col+i<8 && row-i>=0;i++){
-			if (board[row-i][col+i] == 1 || board[row-i][col+i] == 2) diag_count++;
-		}
-		for (int i=1;col-i>=0 && row+i<8;i++){
-			if (i<=diag_count && board[row+i][col-i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row+i)));
-				str.append((char)('A'+col-i));
-				list.add(str.toString());
-			}
-			if (board[row+i][col-i] == 3 - color) break;
-		}
-		for (int i=1;col+i<8 && row-i>=0;i++){
-			if (i<=diag_count && board[row-i][col+i] != color){
-				StringBuilder str = new StringBuilder(Character.toString((char)('1'+row-i)));
-				str.append((char)('A'+col+i));
-				list.add(str.toString());
-			}
-			if (board[row-i][col+i] == 3 - color) break;
-		}
+		for (int i=0;i<count;i++)
+			list.add(Position.squareName(Position.moveTo(moves[i])));
 		return list;
 	}
 
@@ -0,0 +1,581 @@
+package org.linesOfAction.client;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The search of {@link AlphaBetaPruning} (iterative deepening, aspiration windows, principal
+ * variation search, null move, late-move reductions, futility pruning and quiescence) with an
+ * explicit stack instead of recursion, so it can stop anywhere and go on later. AlphaBetaPruning
+ * runs it to completion, and keeps the same one for every search, so the move ordering and the
+ * solver carry over from one turn to the next.<br>
+ * {@link #start} sets up the search and every {@link #step} searches for a few milliseconds, so
+ * the page can run the search between its own events when there is no web worker. Every node
+ * is a {@link Frame} on the stack, its stage tells where it goes on when its child returns.<br>
+ * The endgame solver also runs in steps, and the search starts when it has used its node budget.<br>
+ * It counts the same {@link SearchStatistics} as AlphaBetaPruning.
+ */
+public class IncrementalSearch implements SearchEngine {
+	// how many stages run between two looks at the clock, a slice is only a few milliseconds
+	private static final int STAGES_PER_CLOCK_CHECK = 32;
+
+	// the phases of the search
+	private static final int SOLVING = 0;
+	private static final int SEARCHING = 1;
+	private static final int DONE = 2;
+
+	// the stages of a frame: a root frame searches the root moves of one iteration ...
+	private static final int ROOT_NEXT = 0;
+	private static final int ROOT_NULL_WINDOW = 1;
+	private static final int ROOT_FULL = 2;
+	// ... a node frame an interior node, see AlphaBetaPruning.findMoveScore ...
+	private static final int NODE_ENTER = 3;
+	private static final int NODE_AFTER_NULL_MOVE = 4;
+	private static final int NODE_AFTER_VERIFY = 5;
+	private static final int NODE_GENERATE = 6;
+	private static final int NODE_NEXT = 7;
+	private static final int NODE_NULL_WINDOW = 8;
+	private static final int NODE_FULL = 9;
+	// ... and a quiescence frame a node of the quiescence search
+	private static final int QUIESCENCE_ENTER = 10;
+	private static final int QUIESCENCE_NEXT = 11;
+	private static final int QUIESCENCE_AFTER = 12;
+
+	// what running a frame did
+	private static final int PUSHED = 0;
+	private static final int RETURNED = 1;
+
+	// a node being searched, what the recursive search keeps in its locals
+	static class Frame {
+		int stage;
+		int depth;
+		int alpha;
+		int beta;
+		boolean nullMove;
+		int ply;
+		long key;
+		long entry;
+		int staticScore;
+		boolean futile;
+		int originalAlpha;
+		int count;
+		int index;
+		int move;
+		int reduction;
+		boolean quiet;
+		int bestScore;
+		int bestMove;
+		// the score returned by the last child, from the child's point of view
+		int childScore;
+	}
+
+	private final Heuristic heuristic;
+	private final TranspositionTable table;
+	private SearchConfig config = new SearchConfig();
+	private OpeningBook book;
+	private SearchListener listener;
+	private final SearchStatistics counts = new SearchStatistics();
+	private SearchStatistics statistics = new SearchStatistics();
+	private DfpnSolver solver;
+	private final MoveOrdering ordering = new MoveOrdering(Position.MAX_PLY);
+	private final int[][] moveBuffers = new int[Position.MAX_PLY][Position.MAX_MOVES];
+	private final int[][] orderBuffers = new int[Position.MAX_PLY][Position.MAX_MOVES];
+	// a verification search runs on the position of its node, so there can be more frames than plies
+	private final Frame[] stack = new Frame[2 * Position.MAX_PLY];
+	private int top = -1;
+
+	private Position position;
+	private Deadline deadline;
+	private int maxDepth;
+	private int phase = DONE;
+	private long solverNodes;
+	private final List<AlphaBetaPruning.MoveScore> scores = Lists.newArrayList();
+	// the iteration being searched, and its aspiration window
+	private int iteration;
+	private int window;
+	private int alpha;
+	private int beta;
+	private int previousScore;
+	private int bestMove;
+	private int score;
+	private int result;
+	// 0 for the main search, see AlphaBetaPruning.setHelperIndex
+	private int helperIndex;
+
+	public IncrementalSearch(Heuristic heuristic, TranspositionTable table) {
+		this.heuristic = heuristic;
+		this.table = table;
+		for (int i = 0; i < stack.length; i++) {
+			stack[i] = new Frame();
+		}
+	}
+
+	public void setConfig(SearchConfig config) {
+		this.config = config;
+	}
+
+	public void setBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	public void setHelperIndex(int helperIndex) {
+		this.helperIndex = helperIndex;
+	}
+
+	// forgets what the earlier searches learned, see AlphaBetaPruning.reset
+	void reset() {
+		table.clear();
+		ordering.clear();
+		if (solver != null) {
+			solver.clear();
+		}
+	}
+
+	@Override
+	public int findBestMove(Position root, Deadline deadline) {
+		return findBestMove(root, AlphaBetaPruning.MAX_DEPTH, deadline);
+	}
+
+	// runs the whole search at once, the deadline is the only slice
+	public int findBestMove(Position root, int depth, Deadline deadline) {
+		start(root, depth, deadline);
+		while (search(deadline)) {
+		}
+		return bestMove;
+	}
+
+	public void start(Position root, Deadline deadline) {
+		start(root, AlphaBetaPruning.MAX_DEPTH, deadline);
+	}
+
+	/**
+	 * Starts a search of {@code root}, the calls to {@link #step} then do the searching. A book move
+	 * or a single legal move is known at once, and then the search is already done.
+	 */
+	public void start(Position root, int depth, Deadline deadline) {
+		this.deadline = deadline;
+		maxDepth = Math.min(depth, AlphaBetaPruning.MAX_DEPTH);
+		position = root.copy();
+		score = 0;
+		statistics = new SearchStatistics();
+		solverNodes = 0;
+		top = -1;
+		ordering.newSearch();
+		scores.clear();
+		int[] possibleMoves = moveBuffers[0];
+		int count = position.generateMoves(possibleMoves);
+		int bookMove = book == null ? 0 : book.probe(position) & ~Position.CAPTURE;
+		for (int i = 0; i < count && bookMove != 0; i++) {
+			if ((possibleMoves[i] & ~Position.CAPTURE) == bookMove) {
+				finish(possibleMoves[i]);
+				return;
+			}
+		}
+		AlphaBetaPruning.orderHashMove(possibleMoves, count, TranspositionTable.move(table.probe(position.getHash())));
+		for (int i = 0; i < count; i++) {
+			AlphaBetaPruning.MoveScore moveScore = new AlphaBetaPruning.MoveScore();
+			moveScore.move = possibleMoves[i];
+			moveScore.score = -AlphaBetaPruning.INFINITY;
+			scores.add(moveScore);
+		}
+		bestMove = count > 0 ? scores.get(0).move : 0;
+		if (count <= 1) {
+			finish(bestMove);
+			return;
+		}
+		// GWT has no Collections.rotate
+		for (int i = 0; i < helperIndex % count; i++) {
+			scores.add(scores.remove(0));
+		}
+		boolean endgame = Long.bitCount(position.getPieces(Position.BLACK) | position.getPieces(Position.WHITE)) <= AlphaBetaPruning.ENDGAME_PIECES;
+		phase = config.solverNodes > 0 && endgame ? SOLVING : SEARCHING;
+		iteration = helperIndex % 2;
+		previousScore = 0;
+		startIteration();
+	}
+
+	/**
+	 * Searches for about {@code millis}, and returns false when the search is done (the deadline
+	 * expired, or the last iteration completed).
+	 */
+	public boolean step(long millis) {
+		return search(Deadline.after(millis));
+	}
+
+	// searches until the slice expires, returns false when the search is done
+	private boolean search(Deadline slice) {
+		if (phase == DONE) {
+			return false;
+		}
+		if (phase == SOLVING) {
+			solve(slice);
+			return phase != DONE;
+		}
+		for (int stages = 1; phase == SEARCHING; stages++) {
+			if (stages % STAGES_PER_CLOCK_CHECK == 0) {
+				if (deadline.isExpired()) {
+					// the scores of the unfinished iteration are discarded
+					finish(bestMove);
+					return false;
+				}
+				if (slice.isExpired()) {
+					return true;
+				}
+			}
+			Frame frame = stack[top];
+			if (run(frame) == RETURNED) {
+				top--;
+				if (top < 0) {
+					iterationDone(result);
+				} else {
+					stack[top].childScore = result;
+				}
+			}
+		}
+		return false;
+	}
+
+	public boolean isDone() {
+		return phase == DONE;
+	}
+
+	// ends the search with move, found without it (e.g. by pondering)
+	void finish(int move) {
+		bestMove = move;
+		phase = DONE;
+		position = null;
+	}
+
+	// the best move of the last completed iteration (or the book, solver or hash move)
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	// see AlphaBetaPruning.getScore
+	public int getScore() {
+		return score;
+	}
+
+	// see AlphaBetaPruning.getStatistics
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	// the solver keeps its table between the steps, so every step goes on from the last one
+	private void solve(Deadline slice) {
+		if (solver == null) {
+			solver = new DfpnSolver();
+		}
+		int solved = solver.solve(position, config.solverNodes - solverNodes, slice);
+		solverNodes += solver.getNodes();
+		if (solved == DfpnSolver.WIN) {
+			score = AlphaBetaPruning.WIN_SCORE;
+			finish(solver.getBestMove());
+		} else if (deadline.isExpired()) {
+			finish(bestMove);
+		} else if (solved == DfpnSolver.LOSS || solverNodes >= config.solverNodes) {
+			phase = SEARCHING;
+			// the time of the first iteration starts after the solver's
+			counts.start(iteration + 1, deadline.getClock().currentTimeMillis());
+		}
+	}
+
+	private void startIteration() {
+		window = AlphaBetaPruning.ASPIRATION_WINDOW;
+		alpha = iteration > helperIndex % 2 ? previousScore - window : -AlphaBetaPruning.INFINITY;
+		beta = iteration > helperIndex % 2 ? previousScore + window : AlphaBetaPruning.INFINITY;
+		counts.start(iteration + 1, deadline.getClock().currentTimeMillis());
+		searchRoot();
+	}
+
+	private void searchRoot() {
+		push(ROOT_NEXT, iteration, alpha, beta, true);
+		stack[top].index = 0;
+		stack[top].bestScore = -AlphaBetaPruning.INFINITY;
+		stack[top].bestMove = 0;
+	}
+
+	// the root frame returned, the aspiration window is widened when the score falls outside
+	private void iterationDone(int score) {
+		window *= 2;
+		if (score <= alpha && alpha > -AlphaBetaPruning.INFINITY) {
+			alpha = Math.max(score - window, -AlphaBetaPruning.INFINITY);
+			searchRoot();
+			return;
+		}
+		if (score >= beta && beta < AlphaBetaPruning.INFINITY) {
+			beta = Math.min(score + window, AlphaBetaPruning.INFINITY);
+			searchRoot();
+			return;
+		}
+		previousScore = score;
+		Collections.sort(scores);
+		bestMove = scores.get(0).move;
+		this.score = previousScore;
+		statistics = counts.finish(bestMove, previousScore, AlphaBetaPruning.principalVariation(table, position, bestMove, iteration + 1),
+				deadline.getClock().currentTimeMillis());
+		if (listener != null) {
+			listener.iterationComplete(statistics);
+		}
+		if (++iteration >= maxDepth) {
+			finish(bestMove);
+		} else {
+			startIteration();
+		}
+	}
+
+	private void push(int stage, int depth, int alpha, int beta, boolean nullMove) {
+		Frame frame = stack[++top];
+		frame.stage = stage;
+		frame.depth = depth;
+		frame.alpha = alpha;
+		frame.beta = beta;
+		frame.nullMove = nullMove;
+	}
+
+	private int returnScore(int score) {
+		result = score;
+		return RETURNED;
+	}
+
+	/**
+	 * Runs frame until it pushes a child or returns (its score is then in result).
+	 */
+	private int run(Frame frame) {
+		while (true) {
+			switch (frame.stage) {
+			case ROOT_NEXT:
+				if (frame.index == scores.size()) {
+					scores.add(0, scores.remove(frame.bestMove));
+					return returnScore(frame.bestScore);
+				}
+				frame.move = scores.get(frame.index).move;
+				position.makeMove(frame.move);
+				if (frame.index == 0) {
+					frame.stage = ROOT_FULL;
+					push(NODE_ENTER, frame.depth, -frame.beta, -frame.alpha, true);
+				} else {
+					frame.stage = ROOT_NULL_WINDOW;
+					push(NODE_ENTER, frame.depth, -frame.alpha - 1, -frame.alpha, true);
+				}
+				return PUSHED;
+			case ROOT_NULL_WINDOW:
+				if (-frame.childScore > frame.alpha && -frame.childScore < frame.beta) {
+					frame.stage = ROOT_FULL;
+					push(NODE_ENTER, frame.depth, -frame.beta, -frame.alpha, true);
+					return PUSHED;
+				}
+				// the null window score is the move's score
+				frame.stage = ROOT_FULL;
+				break;
+			case ROOT_FULL: {
+				int score = -frame.childScore;
+				position.unmakeMove(frame.move);
+				scores.get(frame.index).score = score;
+				if (score > frame.bestScore) {
+					frame.bestScore = score;
+					frame.bestMove = frame.index;
+					frame.alpha = Math.max(frame.alpha, score);
+					if (frame.alpha >= frame.beta) {
+						scores.add(0, scores.remove(frame.bestMove));
+						return returnScore(score);
+					}
+				}
+				frame.index++;
+				frame.stage = ROOT_NEXT;
+				break;
+			}
+			case NODE_ENTER: {
+				counts.node();
+				frame.ply = position.getPly();
+				if (AIHelper.checkOver(position)) {
+					return returnScore(evaluate());
+				}
+				if (frame.depth == 0) {
+					// the node becomes the root of a quiescence search
+					frame.depth = AlphaBetaPruning.QUIESCENCE_DEPTH;
+					frame.stage = QUIESCENCE_ENTER;
+					break;
+				}
+				frame.key = position.getHash();
+				frame.entry = table.probe(frame.key);
+				long entry = frame.entry;
+				counts.probe(entry != 0);
+				if (entry != 0 && TranspositionTable.depth(entry) >= frame.depth) {
+					int score = TranspositionTable.score(entry);
+					int bound = TranspositionTable.bound(entry);
+					if (bound == TranspositionTable.EXACT
+							|| (bound == TranspositionTable.LOWER && score >= frame.beta)
+							|| (bound == TranspositionTable.UPPER && score <= frame.alpha)) {
+						return returnScore(score);
+					}
+				}
+				boolean nullWindow = frame.beta - frame.alpha == 1;
+				frame.staticScore = nullWindow && (config.nullMove || config.futilityPruning) ? evaluate() : 0;
+				frame.futile = config.futilityPruning && nullWindow && frame.depth < AlphaBetaPruning.FUTILITY_MARGIN.length
+						&& frame.staticScore + AlphaBetaPruning.FUTILITY_MARGIN[frame.depth] <= frame.alpha;
+				if (config.nullMove && frame.nullMove && nullWindow && frame.depth >= AlphaBetaPruning.NULL_MOVE_MIN_DEPTH
+						&& frame.staticScore >= frame.beta) {
+					position.makeNullMove();
+					frame.stage = NODE_AFTER_NULL_MOVE;
+					push(NODE_ENTER, Math.max(frame.depth - 1 - AlphaBetaPruning.NULL_MOVE_REDUCTION, 0), -frame.beta, -frame.beta + 1, false);
+					return PUSHED;
+				}
+				frame.stage = NODE_GENERATE;
+				break;
+			}
+			case NODE_AFTER_NULL_MOVE:
+				position.unmakeNullMove();
+				if (-frame.childScore >= frame.beta) {
+					frame.stage = NODE_AFTER_VERIFY;
+					push(NODE_ENTER, Math.max(frame.depth - AlphaBetaPruning.NULL_MOVE_REDUCTION, 1), frame.beta - 1, frame.beta, false);
+					return PUSHED;
+				}
+				frame.stage = NODE_GENERATE;
+				break;
+			case NODE_AFTER_VERIFY:
+				if (frame.childScore >= frame.beta) {
+					return returnScore(frame.childScore);
+				}
+				frame.stage = NODE_GENERATE;
+				break;
+			case NODE_GENERATE: {
+				int[] possibleMoves = moveBuffers[frame.ply];
+				frame.count = position.generateMoves(possibleMoves);
+				if (frame.count == 0) {
+					return returnScore(evaluate());
+				}
+				ordering.order(possibleMoves, orderBuffers[frame.ply], frame.count, TranspositionTable.move(frame.entry), frame.ply);
+				counts.expanded();
+				frame.originalAlpha = frame.alpha;
+				frame.bestScore = -AlphaBetaPruning.INFINITY;
+				frame.bestMove = 0;
+				frame.index = 0;
+				frame.stage = NODE_NEXT;
+				break;
+			}
+			case NODE_NEXT: {
+				if (frame.index == frame.count) {
+					store(frame);
+					return returnScore(frame.bestScore);
+				}
+				int i = frame.index;
+				int depth = frame.depth;
+				frame.move = moveBuffers[frame.ply][i];
+				frame.quiet = (frame.futile || (config.lateMoveReductions && i >= AlphaBetaPruning.LMR_MIN_RANK && depth >= AlphaBetaPruning.LMR_MIN_DEPTH))
+						&& !position.isTactical(frame.move);
+				if (frame.futile && frame.quiet && i > 0) {
+					frame.bestScore = Math.max(frame.bestScore, frame.staticScore + AlphaBetaPruning.FUTILITY_MARGIN[depth]);
+					frame.index++;
+					break;
+				}
+				position.makeMove(frame.move);
+				if (i == 0) {
+					frame.stage = NODE_FULL;
+					push(NODE_ENTER, depth - 1, -frame.beta, -frame.alpha, true);
+					return PUSHED;
+				}
+				frame.reduction = 0;
+				if (config.lateMoveReductions && frame.quiet && i >= AlphaBetaPruning.LMR_MIN_RANK && depth >= AlphaBetaPruning.LMR_MIN_DEPTH) {
+					frame.reduction = i >= AlphaBetaPruning.LMR_DEEP_RANK && depth > AlphaBetaPruning.LMR_MIN_DEPTH ? 2 : 1;
+				}
+				frame.stage = NODE_NULL_WINDOW;
+				push(NODE_ENTER, depth - 1 - frame.reduction, -frame.alpha - 1, -frame.alpha, true);
+				return PUSHED;
+			}
+			case NODE_NULL_WINDOW:
+				if (frame.reduction > 0 && -frame.childScore > frame.alpha) {
+					// the reduced search failed high, the move gets the full depth
+					frame.reduction = 0;
+					push(NODE_ENTER, frame.depth - 1, -frame.alpha - 1, -frame.alpha, true);
+					return PUSHED;
+				}
+				if (-frame.childScore > frame.alpha && -frame.childScore < frame.beta) {
+					frame.stage = NODE_FULL;
+					push(NODE_ENTER, frame.depth - 1, -frame.beta, -frame.alpha, true);
+					return PUSHED;
+				}
+				// the null window score is the move's score
+				frame.stage = NODE_FULL;
+				break;
+			case NODE_FULL: {
+				int score = -frame.childScore;
+				position.unmakeMove(frame.move);
+				if (score > frame.bestScore) {
+					frame.bestScore = score;
+					frame.bestMove = frame.move;
+					frame.alpha = Math.max(frame.alpha, score);
+					if (frame.beta <= frame.alpha) {
+						ordering.cutoff(frame.move, frame.ply, frame.depth);
+						counts.cutoff(frame.index);
+						store(frame);
+						return returnScore(score);
+					}
+				}
+				frame.index++;
+				frame.stage = NODE_NEXT;
+				break;
+			}
+			case QUIESCENCE_ENTER: {
+				counts.quiescenceNode();
+				frame.ply = position.getPly();
+				int standPat = evaluate();
+				if (standPat >= frame.beta || frame.depth == 0 || AIHelper.checkOver(position)) {
+					return returnScore(standPat);
+				}
+				frame.alpha = Math.max(frame.alpha, standPat);
+				int[] tacticalMoves = moveBuffers[frame.ply];
+				frame.count = position.generateTacticalMoves(tacticalMoves);
+				ordering.order(tacticalMoves, orderBuffers[frame.ply], frame.count, 0, frame.ply);
+				frame.bestScore = standPat;
+				frame.index = 0;
+				frame.stage = QUIESCENCE_NEXT;
+				break;
+			}
+			case QUIESCENCE_NEXT:
+				if (frame.index == frame.count) {
+					return returnScore(frame.bestScore);
+				}
+				frame.move = moveBuffers[frame.ply][frame.index];
+				position.makeMove(frame.move);
+				frame.stage = QUIESCENCE_AFTER;
+				push(QUIESCENCE_ENTER, frame.depth - 1, -frame.beta, -frame.alpha, false);
+				return PUSHED;
+			case QUIESCENCE_AFTER: {
+				int score = -frame.childScore;
+				position.unmakeMove(frame.move);
+				if (score > frame.bestScore) {
+					frame.bestScore = score;
+					frame.alpha = Math.max(frame.alpha, score);
+					if (frame.alpha >= frame.beta) {
+						return returnScore(score);
+					}
+				}
+				frame.index++;
+				frame.stage = QUIESCENCE_NEXT;
+				break;
+			}
+			default:
+				throw new IllegalStateException("stage " + frame.stage);
+			}
+		}
+	}
+
+	private void store(Frame frame) {
+		int bound = frame.bestScore >= frame.beta ? TranspositionTable.LOWER
+				: frame.bestScore <= frame.originalAlpha ? TranspositionTable.UPPER : TranspositionTable.EXACT;
+		table.store(frame.key, frame.depth, bound, frame.bestScore, frame.bestMove);
+	}
+
+	// the heuristic is from the point of view of the white
+	private int evaluate() {
+		int value = heuristic.getStateValue(position);
+		return position.getTurn() == Position.WHITE ? value : -value;
+	}
+}
@@ -0,0 +1,304 @@
+package org.linesOfAction.client;
+
+import java.util.Random;
+
+/**
+ * http://en.wikipedia.org/wiki/Monte_Carlo_tree_search<br>
+ * Grows a tree from the root one position per iteration: UCT picks the child to follow down to a
+ * position with moves not in the tree yet, one of them is added, and a playout from there plays
+ * random moves until a side is connected. The result is counted in every position on the way.<br>
+ * Playouts are biased: a few random moves are drawn and a capture or a move that joins two groups
+ * is preferred among them.<br>
+ * MCTS-solver (Winands et al., 2008): a position the side to move can connect from is a proved win,
+ * and one where every move leads to a proved win for the opponent is a proved loss. Proved
+ * positions are never played out again, and a proved win at the root ends the search.<br>
+ * Several threads can run {@link #run} on the same tree (tree parallelization): the tree is changed
+ * under a lock and the playouts run outside of it. Every position on the way down gets its visit
+ * before the playout (a virtual loss), so the other threads spread over other lines meanwhile.
+ */
+public class MonteCarloTreeSearch implements SearchEngine {
+	// the UCT exploration constant
+	static final double EXPLORATION = 0.7;
+	// how many random moves a playout draws to look for a tactical one
+	static final int PLAYOUT_SAMPLES = 3;
+	// how deep the last tree is searched for the new root (our move and the opponent's)
+	static final int REUSE_PLIES = 2;
+
+	static final int UNKNOWN = 0;
+	// the side that moved into the node wins, or loses
+	static final int WIN = 1;
+	static final int LOSS = 2;
+	// both sides are connected, a draw for the heuristic
+	static final int DRAW = 3;
+
+	static class Node {
+		Node parent;
+		final int move;
+		// the moves not in the tree yet, the first untried of them
+		int[] moves;
+		int untried;
+		Node[] children;
+		int childCount;
+		int visits;
+		// from the point of view of the side that moved into the node, a draw counts half
+		double wins;
+		int result;
+
+		Node(Node parent, int move) {
+			this.parent = parent;
+			this.move = move;
+		}
+	}
+
+	private final Heuristic heuristic;
+	private final Random random;
+	private int maxIterations = Integer.MAX_VALUE;
+	private Position rootPosition;
+	private Node root;
+	private int iterations;
+
+	public MonteCarloTreeSearch(Heuristic heuristic) {
+		this(heuristic, new Random());
+	}
+
+	public MonteCarloTreeSearch(Heuristic heuristic, Random random) {
+		this.heuristic = heuristic;
+		this.random = random;
+	}
+
+	// the search also stops after this many iterations
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	@Override
+	public int findBestMove(Position root, Deadline deadline) {
+		start(root);
+		run(deadline, random);
+		return getBestMove();
+	}
+
+	/**
+	 * Starts the search at {@code position}, the threads then call {@link #run}. If the position is
+	 * in the last tree (a few plies below its root) its subtree is kept, else a new tree is started.
+	 */
+	public synchronized void start(Position position) {
+		Node reused = root == null ? null : find(root, rootPosition.copy(), position.getHash(), REUSE_PLIES);
+		rootPosition = position.copy();
+		if (reused != null && reused.moves != null) {
+			reused.parent = null;
+			root = reused;
+		} else {
+			root = new Node(null, 0);
+			expand(root, rootPosition);
+		}
+		iterations = 0;
+	}
+
+	// the node of the position with the given key, at most plies below node (in position)
+	private static Node find(Node node, Position position, long key, int plies) {
+		if (position.getHash() == key) {
+			return node;
+		}
+		for (int i = 0; i < node.childCount && plies > 0; i++) {
+			Node child = node.children[i];
+			position.makeMove(child.move);
+			Node found = find(child, position, key, plies - 1);
+			position.unmakeMove(child.move);
+			if (found != null) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs iterations until the deadline expires, the iterations run out or the root is proved (with
+	 * {@link Deadline#never} only the last two stop it). Every thread needs its own {@code random}.
+	 */
+	public void run(Deadline deadline, Random random) {
+		while (!deadline.isExpired()) {
+			Position position;
+			Node node;
+			synchronized (this) {
+				if (iterations >= maxIterations || root.result != UNKNOWN || root.moves.length <= 1) {
+					return;
+				}
+				iterations++;
+				position = rootPosition.copy();
+				node = select(root, position);
+			}
+			double result = node.result == UNKNOWN ? playout(position.copy(), random) : score(node.result);
+			synchronized (this) {
+				backup(node, result);
+			}
+		}
+	}
+
+	public synchronized int getIterations() {
+		return iterations;
+	}
+
+	// how many iterations went through the current root, including those of earlier searches
+	synchronized int getRootVisits() {
+		return root.visits;
+	}
+
+	// how many iterations went through the root's child of move, 0 if it isn't in the tree
+	synchronized int getChildVisits(int move) {
+		for (int i = 0; i < root.childCount; i++) {
+			if (root.children[i].move == move) {
+				return root.children[i].visits;
+			}
+		}
+		return 0;
+	}
+
+	// the proved result of the current root (for the side that moved into it), UNKNOWN until proved
+	synchronized int getRootResult() {
+		return root.result;
+	}
+
+	/**
+	 * A proved win if there is one, else the most visited move that isn't a proved loss.
+	 */
+	public synchronized int getBestMove() {
+		Node best = null;
+		for (int i = 0; i < root.childCount; i++) {
+			Node child = root.children[i];
+			if (child.result == WIN) {
+				return child.move;
+			}
+			if (child.result != LOSS && (best == null || child.visits > best.visits)) {
+				best = child;
+			}
+		}
+		if (best != null) {
+			return best.move;
+		}
+		// every move in the tree loses, one not tried yet may not
+		if (root.untried < root.moves.length) {
+			return root.moves[root.untried];
+		}
+		return root.childCount > 0 ? root.children[0].move : 0;
+	}
+
+	// goes down the tree with UCT, adds a child and plays its move on position
+	private Node select(Node node, Position position) {
+		while (true) {
+			node.visits++; // the virtual loss, backup adds the result
+			if (node.result != UNKNOWN || position.getPly() == Position.MAX_PLY - 1) {
+				return node;
+			}
+			if (node.untried < node.moves.length) {
+				Node child = new Node(node, node.moves[node.untried++]);
+				node.children[node.childCount++] = child;
+				position.makeMove(child.move);
+				child.result = result(position);
+				if (child.result == UNKNOWN) {
+					expand(child, position);
+				}
+				child.visits++;
+				prove(child);
+				return child;
+			}
+			Node best = null;
+			double bestValue = -1;
+			double logVisits = Math.log(node.visits);
+			for (int i = 0; i < node.childCount; i++) {
+				Node child = node.children[i];
+				if (child.result == LOSS) {
+					continue;
+				}
+				double value = child.result == WIN ? 2 : child.wins / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+			if (best == null) {
+				// every move loses, the node was proved when its last child was
+				return node;
+			}
+			position.makeMove(best.move);
+			node = best;
+		}
+	}
+
+	private static void expand(Node node, Position position) {
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		node.moves = new int[count];
+		System.arraycopy(moves, 0, node.moves, 0, count);
+		node.children = new Node[count];
+	}
+
+	// the result of the game for the side that moved into position
+	private static int result(Position position) {
+		boolean moverConnected = AIHelper.isConnected(position, 3 - position.getTurn());
+		boolean connected = AIHelper.isConnected(position, position.getTurn());
+		if (moverConnected && connected) {
+			return DRAW;
+		}
+		return moverConnected ? WIN : connected ? LOSS : UNKNOWN;
+	}
+
+	private static double score(int result) {
+		return result == WIN ? 1 : result == LOSS ? 0 : 0.5;
+	}
+
+	// MCTS-solver: passes a proved child on to its parents
+	private static void prove(Node child) {
+		for (Node node = child.parent; node != null && child.result != UNKNOWN && child.result != DRAW; child = node, node = node.parent) {
+			if (child.result == WIN) {
+				node.result = LOSS;
+			} else if (node.untried == node.moves.length) {
+				for (int i = 0; i < node.childCount; i++) {
+					if (node.children[i].result != LOSS) {
+						return;
+					}
+				}
+				node.result = WIN;
+			} else {
+				return;
+			}
+		}
+	}
+
+	// result is for the side that moved into node, the sides take turns on the way up
+	private static void backup(Node node, double result) {
+		for (; node != null; node = node.parent) {
+			node.wins += result;
+			result = 1 - result;
+		}
+	}
+
+	/**
+	 * Plays random moves until a side is connected, and returns the score for the side that moved
+	 * into position. A playout that runs out of room on the undo stack is scored by the heuristic.
+	 */
+	private double playout(Position position, Random random) {
+		int mover = 3 - position.getTurn();
+		int[] moves = new int[Position.MAX_MOVES];
+		while (position.getPly() < Position.MAX_PLY) {
+			int count = position.generateMoves(moves);
+			if (count == 0) {
+				return position.getTurn() == mover ? 0 : 1;
+			}
+			int move = moves[random.nextInt(count)];
+			for (int i = 1; i < PLAYOUT_SAMPLES && !position.isTactical(move); i++) {
+				move = moves[random.nextInt(count)];
+			}
+			position.makeMove(move);
+			int result = result(position);
+			if (result != UNKNOWN) {
+				// the side that just moved is the mover when the turn is back to the mover's opponent
+				double score = score(result);
+				return position.getTurn() == mover ? 1 - score : score;
+			}
+		}
+		int value = heuristic.getStateValue(position);
+		int moverValue = mover == Position.WHITE ? value : -value;
+		return moverValue > 0 ? 1 : moverValue < 0 ? 0 : 0.5;
+	}
+}
@@ -0,0 +1,90 @@
+package org.linesOfAction.client;
+
+/**
+ * Orders the moves of interior nodes: the hash move first, then the two killer moves of the ply
+ * (moves that caused a beta cutoff in a sibling node), then the rest by their butterfly history
+ * score (from-square x to-square), which grows every time the move causes a cutoff.<br>
+ * In LOA a capture is not much more forcing than any other move, so all moves are treated alike.
+ */
+public class MoveOrdering {
+	private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+	private static final int KILLER_SCORE = Integer.MAX_VALUE - 2;
+	// history scores are halved once they reach this, so they can never reach the killers
+	private static final int HISTORY_LIMIT = 1 << 24;
+
+	private final int[][] killers;
+	private final int[] history = new int[64 * 64];
+
+	public MoveOrdering(int maxPly) {
+		killers = new int[maxPly + 1][2];
+	}
+
+	// the killers belong to the previous root, the history is aged
+	public void newSearch() {
+		for (int[] killer : killers) {
+			killer[0] = 0;
+			killer[1] = 0;
+		}
+		for (int i = 0; i < history.length; i++) {
+			history[i] /= 2;
+		}
+	}
+
+	// forgets the killers and the history, as at the start of a game
+	public void clear() {
+		for (int[] killer : killers) {
+			killer[0] = 0;
+			killer[1] = 0;
+		}
+		for (int i = 0; i < history.length; i++) {
+			history[i] = 0;
+		}
+	}
+
+	/**
+	 * Sorts the first {@code count} moves (best first), {@code scores} is scratch space of the same size.
+	 */
+	public void order(int[] moves, int[] scores, int count, int hashMove, int ply) {
+		int[] killer = killers[ply];
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			scores[i] = move == hashMove ? HASH_MOVE_SCORE
+					: move == killer[0] ? KILLER_SCORE
+					: move == killer[1] ? KILLER_SCORE - 1
+					: history[butterfly(move)];
+		}
+		// insertion sort, most nodes cut off after the first few moves anyway
+		for (int i = 1; i < count; i++) {
+			int move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+			while (j >= 0 && scores[j] < score) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+	// move caused a beta cutoff at ply with depth plies left
+	public void cutoff(int move, int ply, int depth) {
+		int[] killer = killers[ply];
+		if (killer[0] != move) {
+			killer[1] = killer[0];
+			killer[0] = move;
+		}
+		int index = butterfly(move);
+		history[index] += depth * depth;
+		if (history[index] >= HISTORY_LIMIT) {
+			for (int i = 0; i < history.length; i++) {
+				history[i] /= 2;
+			}
+		}
+	}
+
+	private static int butterfly(int move) {
+		return Position.moveFrom(move) * 64 + Position.moveTo(move);
+	}
+}
@@ -0,0 +1,41 @@
+package org.linesOfAction.client;
+
+/**
+ * Precomputed tables for move generation.<br>
+ * The board has 46 lines: 8 rows, 8 columns, 15 diagonals (/) and 15 anti-diagonals (\).
+ * Directions come in opposite pairs (0,1), (2,3), (4,5) and (6,7), both going along the same line.
+ */
+public class MoveTables {
+	public static final int LINES = 46;
+	public static final int DIRECTIONS = 8;
+
+	static final int[] DIRECTION_ROW = { 0, 0, 1, -1, 1, -1, 1, -1 };
+	static final int[] DIRECTION_COL = { 1, -1, 0, 0, 1, -1, -1, 1 };
+
+	// the line through a square along a direction
+	static final int[][] LINE = new int[64][DIRECTIONS];
+	// the four lines through a square
+	static final int[][] SQUARE_LINES = new int[64][4];
+	// the squares from a square (not included) to the edge of the board along a direction
+	static final int[][][] RAYS = new int[64][DIRECTIONS][];
+
+	static {
+		for (int sq=0;sq<64;sq++){
+			int row = sq / 8;
+			int col = sq % 8;
+			SQUARE_LINES[sq][0] = row;
+			SQUARE_LINES[sq][1] = 8 + col;
+			SQUARE_LINES[sq][2] = 16 + row - col + 7;
+			SQUARE_LINES[sq][3] = 31 + row + col;
+			for (int dir=0;dir<DIRECTIONS;dir++){
+				LINE[sq][dir] = SQUARE_LINES[sq][dir/2];
+				int length = 0;
+				for (int r=row+DIRECTION_ROW[dir],c=col+DIRECTION_COL[dir];r>=0 && r<8 && c>=0 && c<8;r+=DIRECTION_ROW[dir],c+=DIRECTION_COL[dir])
+					length++;
+				RAYS[sq][dir] = new int[length];
+				for (int i=0;i<length;i++)
+					RAYS[sq][dir][i] = Position.square(row+(i+1)*DIRECTION_ROW[dir],col+(i+1)*DIRECTION_COL[dir]);
+			}
+		}
+	}
+}
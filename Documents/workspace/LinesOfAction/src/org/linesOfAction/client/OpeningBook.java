@@ -0,0 +1,11 @@
+package org.linesOfAction.client;
+
+/**
+ * Moves known to be good in the opening, probed before searching.
+ */
+public interface OpeningBook {
+	/**
+	 * Returns a book move of the side to move in {@code position}, or 0 if the position is not in the book.
+	 */
+	int probe(Position position);
+}
@@ -0,0 +1,357 @@
+package org.linesOfAction.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.game_api.GameApi.Operation;
+import org.game_api.GameApi.Set;
+
+/**
+ * Compact board used by the AI search.<br>
+ * Square {@code row*8+col} maps to the state key {@code ('1'+row)('A'+col)}, and each color
+ * keeps one bit per square in a 64-bit occupancy word.<br>
+ * The GameApi state map is only converted at the root, see {@link #fromState} and {@link #toState}.<br>
+ * The search plays moves in place with {@link #makeMove} and takes them back with {@link #unmakeMove},
+ * the captured pieces are kept on an undo stack and the {@link Zobrist} key is updated incrementally.<br>
+ * The Euler number of each side is kept from its {@link QuadCounts}, so most positions are known
+ * not to be connected without a flood fill.
+ */
+public class Position {
+	public static final int EMPTY = 0;
+	public static final int BLACK = 1;
+	public static final int WHITE = 2;
+
+	// at most 12 pieces, each can reach at most 27 squares
+	public static final int MAX_MOVES = 12 * 27;
+	// the deepest line of moves that can be made before unmaking them
+	public static final int MAX_PLY = 128;
+
+	long black;
+	long white;
+	int turn;
+	long hash;
+	// the number of pieces on each line, see MoveTables
+	private final int[] lineCounts = new int[MoveTables.LINES];
+	// 4 * the Euler number of each color, see QuadCounts
+	private final int[] eulerSums = new int[3];
+
+	// the piece captured by each move made so far (EMPTY if none)
+	private final int[] captured = new int[MAX_PLY];
+	private final int[] blackEulerSums = new int[MAX_PLY];
+	private final int[] whiteEulerSums = new int[MAX_PLY];
+	private int ply;
+
+	public Position(long black, long white, int turn) {
+		this.black = black;
+		this.white = white;
+		this.turn = turn;
+		this.hash = Zobrist.hash(black,white,turn);
+		for (long pieces = black | white; pieces != 0; pieces &= pieces - 1)
+			addToLines(Long.numberOfTrailingZeros(pieces),1);
+		eulerSums[BLACK] = QuadCounts.eulerSum(black);
+		eulerSums[WHITE] = QuadCounts.eulerSum(white);
+	}
+
+	public static Position initial() {
+		long black = 0L;
+		long white = 0L;
+		for (int i=1;i<7;i++){
+			black |= bit(square(0,i)) | bit(square(7,i));
+			white |= bit(square(i,0)) | bit(square(i,7));
+		}
+		return new Position(black,white,WHITE);
+	}
+
+	// an empty state (the game has not started yet) is the initial board with white to move
+	public static Position fromState(Map<String,Object> state){
+		if (state.size() == 0) return initial();
+		long black = 0L;
+		long white = 0L;
+		for (int sq=0;sq<64;sq++){
+			Object value = state.get(squareName(sq));
+			if ("B".equals(value)) black |= bit(sq);
+			else if ("W".equals(value)) white |= bit(sq);
+		}
+		return new Position(black,white,"W".equals(state.get("turn")) ? WHITE : BLACK);
+	}
+
+	public Map<String,Object> toState(){
+		Map<String,Object> state = new HashMap<String,Object>();
+		for (int sq=0;sq<64;sq++){
+			int piece = pieceAt(sq);
+			state.put(squareName(sq), piece == BLACK ? "B" : piece == WHITE ? "W" : "0");
+		}
+		state.put("turn",turn == WHITE ? "W" : "B");
+		return state;
+	}
+
+	public static int square(int row, int col){
+		return row * 8 + col;
+	}
+
+	public static int square(String key){
+		return square(key.charAt(0)-'1',key.charAt(1)-'A');
+	}
+
+	public static String squareName(int sq){
+		StringBuilder str = new StringBuilder(Character.toString((char)('1'+sq/8)));
+		str.append((char)('A'+sq%8));
+		return str.toString();
+	}
+
+	static long bit(int sq){
+		return 1L << sq;
+	}
+
+	/*
+	 * A move is an int: the from square (bits 0-5), the to square (bits 6-11) and the CAPTURE flag.
+	 * It only becomes GameApi operations when GamePresenter sends it, see toOperations.
+	 */
+	public static final int CAPTURE = 1 << 12;
+
+	public static int moveFrom(int move){
+		return move & 63;
+	}
+
+	public static int moveTo(int move){
+		return (move >>> 6) & 63;
+	}
+
+	public static int move(int from, int to){
+		return from | (to << 6);
+	}
+
+	public static boolean isCapture(int move){
+		return (move & CAPTURE) != 0;
+	}
+
+	// board[row][col] is EMPTY, BLACK or WHITE
+	public static Position fromBoard(int[][] board, int turn){
+		long black = 0L;
+		long white = 0L;
+		for (int i=0;i<8;i++)
+			for (int j=0;j<8;j++){
+				if (board[i][j] == BLACK) black |= bit(square(i,j));
+				else if (board[i][j] == WHITE) white |= bit(square(i,j));
+			}
+		return new Position(black,white,turn);
+	}
+
+	public int getTurn(){
+		return turn;
+	}
+
+	public long getPieces(int color){
+		return color == BLACK ? black : white;
+	}
+
+	public int pieceAt(int sq){
+		long b = bit(sq);
+		if ((black & b) != 0) return BLACK;
+		if ((white & b) != 0) return WHITE;
+		return EMPTY;
+	}
+
+	// the number of groups minus the number of holes of color
+	public int getEulerNumber(int color){
+		return eulerSums[color] / 4;
+	}
+
+	// false means color's pieces are certainly not all connected
+	public boolean mayBeConnected(int color){
+		return eulerSums[color] <= 4;
+	}
+
+	public long getHash(){
+		return hash;
+	}
+
+	public Position copy(){
+		return new Position(black,white,turn);
+	}
+
+	public int getPly(){
+		return ply;
+	}
+
+	/**
+	 * Returns the position after the side to move plays {@code move}, this position is unchanged.
+	 */
+	public Position play(int move){
+		Position next = copy();
+		next.makeMove(move);
+		return next;
+	}
+
+	// the side to move plays move, and it's the other side's turn
+	public void makeMove(int move){
+		long from = bit(moveFrom(move));
+		long to = bit(moveTo(move));
+		hash ^= moveKey(move);
+		addToLines(moveFrom(move),-1);
+		if (((black | white) & to) == 0) addToLines(moveTo(move),1);
+		blackEulerSums[ply] = eulerSums[BLACK];
+		whiteEulerSums[ply] = eulerSums[WHITE];
+		long own = getPieces(turn);
+		eulerSums[turn] += QuadCounts.toggleDelta(own,moveFrom(move)) + QuadCounts.toggleDelta(own & ~from,moveTo(move));
+		if ((getPieces(3-turn) & to) != 0) eulerSums[3-turn] += QuadCounts.toggleDelta(getPieces(3-turn),moveTo(move));
+		if (turn == WHITE){
+			captured[ply++] = (black & to) != 0 ? BLACK : EMPTY;
+			white = (white & ~from) | to;
+			black &= ~to;
+			turn = BLACK;
+		}
+		else{
+			captured[ply++] = (white & to) != 0 ? WHITE : EMPTY;
+			black = (black & ~from) | to;
+			white &= ~to;
+			turn = WHITE;
+		}
+		if (captured[ply-1] != EMPTY) hash ^= Zobrist.PIECES[captured[ply-1]][moveTo(move)];
+	}
+
+	// passes the turn, LOA has no passing but the null-move pruning of the search needs it
+	public void makeNullMove(){
+		ply++;
+		turn = 3-turn;
+		hash ^= Zobrist.WHITE_TO_MOVE;
+	}
+
+	public void unmakeNullMove(){
+		ply--;
+		turn = 3-turn;
+		hash ^= Zobrist.WHITE_TO_MOVE;
+	}
+
+	// the key change of move by the side to move, not counting a capture
+	private long moveKey(int move){
+		long[] keys = Zobrist.PIECES[turn];
+		return keys[moveFrom(move)] ^ keys[moveTo(move)] ^ Zobrist.WHITE_TO_MOVE;
+	}
+
+	// takes back move, which must be the last move made
+	public void unmakeMove(int move){
+		long from = bit(moveFrom(move));
+		long to = bit(moveTo(move));
+		int piece = captured[--ply];
+		eulerSums[BLACK] = blackEulerSums[ply];
+		eulerSums[WHITE] = whiteEulerSums[ply];
+		if (piece != EMPTY) hash ^= Zobrist.PIECES[piece][moveTo(move)];
+		if (turn == BLACK){
+			white = (white & ~to) | from;
+			if (piece == BLACK) black |= to;
+			turn = WHITE;
+		}
+		else{
+			black = (black & ~to) | from;
+			if (piece == WHITE) white |= to;
+			turn = BLACK;
+		}
+		hash ^= moveKey(move);
+		if (piece == EMPTY) addToLines(moveTo(move),-1);
+		addToLines(moveFrom(move),1);
+	}
+
+	private void addToLines(int sq, int delta){
+		int[] lines = MoveTables.SQUARE_LINES[sq];
+		lineCounts[lines[0]] += delta;
+		lineCounts[lines[1]] += delta;
+		lineCounts[lines[2]] += delta;
+		lineCounts[lines[3]] += delta;
+	}
+
+	/**
+	 * Fills {@code moves} with every legal move of the side to move and returns how many there are.<br>
+	 * A piece moves along a line at most as many squares as there are pieces on that line,
+	 * it can jump over its own pieces but not over the enemy's, and it can't land on its own piece.
+	 */
+	public int generateMoves(int[] moves){
+		long own = getPieces(turn);
+		long enemy = getPieces(3-turn);
+		int count = 0;
+		for (long pieces = own; pieces != 0; pieces &= pieces - 1)
+			count = generateMoves(Long.numberOfTrailingZeros(pieces),own,enemy,moves,count);
+		return count;
+	}
+
+	/**
+	 * The moves searched by the quiescence search: captures, and moves that lower the Euler number
+	 * of the side to move (they join two of its groups).
+	 */
+	public int generateTacticalMoves(int[] moves){
+		long own = getPieces(turn);
+		long enemy = getPieces(3-turn);
+		int count = 0;
+		for (long pieces = own; pieces != 0; pieces &= pieces - 1){
+			int from = Long.numberOfTrailingZeros(pieces);
+			int start = count;
+			count = generateMoves(from,own,enemy,moves,count);
+			int kept = start;
+			for (int i=start;i<count;i++)
+				if (isTactical(moves[i])) moves[kept++] = moves[i];
+			count = kept;
+		}
+		return count;
+	}
+
+	// a capture or a move that joins two groups of the side to move, see generateTacticalMoves
+	public boolean isTactical(int move){
+		if (isCapture(move)) return true;
+		long own = getPieces(turn);
+		int from = moveFrom(move);
+		return QuadCounts.toggleDelta(own,from) + QuadCounts.toggleDelta(own & ~bit(from),moveTo(move)) < 0;
+	}
+
+	/**
+	 * Adds the moves of the piece on {@code from} to {@code moves} starting at {@code count},
+	 * and returns the new count.
+	 */
+	public int generateMoves(int from, int[] moves, int count){
+		int color = pieceAt(from);
+		return generateMoves(from,getPieces(color),getPieces(3-color),moves,count);
+	}
+
+	private int generateMoves(int from, long own, long enemy, int[] moves, int count){
+		int[] lines = MoveTables.LINE[from];
+		int[][] rays = MoveTables.RAYS[from];
+		for (int dir=0;dir<MoveTables.DIRECTIONS;dir++){
+			int[] ray = rays[dir];
+			int limit = Math.min(lineCounts[lines[dir]],ray.length);
+			for (int i=0;i<limit;i++){
+				long to = bit(ray[i]);
+				if ((own & to) != 0) continue;
+				if ((enemy & to) != 0){
+					moves[count++] = move(from,ray[i]) | CAPTURE;
+					break;
+				}
+				moves[count++] = move(from,ray[i]);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The two operations GamePresenter sends for {@code move} by the side to move.
+	 */
+	public List<Operation> toOperations(int move){
+		List<Operation> ret = new ArrayList<Operation>();
+		ret.add(new Set(squareName(moveFrom(move)),"0"));
+		ret.add(new Set(squareName(moveTo(move)),turn == WHITE ? "W" : "B"));
+		return ret;
+	}
+
+	@Override
+	public boolean equals(Object obj){
+		if (!(obj instanceof Position)) return false;
+		Position other = (Position)obj;
+		return black == other.black && white == other.white && turn == other.turn;
+	}
+
+	@Override
+	public int hashCode(){
+		long h = black * 31 + white;
+		return (int)(h ^ (h >>> 32)) * 31 + turn;
+	}
+}
@@ -0,0 +1,70 @@
+package org.linesOfAction.client;
+
+/**
+ * Euler number of a side's pieces from its 2x2 quads (Gray, 1971).<br>
+ * Every 2x2 window of the board padded by one empty square on each side (9x9 = 81 quads) is
+ * classified by which of its squares hold a piece: Q1 (one square), Q3 (three squares) and
+ * QD (two diagonal squares). For 8-connected pieces the Euler number, the number of groups minus
+ * the number of holes, is (Q1 - Q3 - 2*QD) / 4.<br>
+ * A piece only touches four quads, so {@link Position} keeps the sum up to date in O(1) per move.
+ * Holes are rare in LOA, and since groups = euler + holes, an Euler number above 1 proves the side
+ * is not connected without a flood fill.
+ */
+public class QuadCounts {
+	public static final int QUADS = 81;
+
+	// the contribution of a quad to 4 * euler, indexed by its squares (1: top left, 2: top right,
+	// 4: bottom left, 8: bottom right)
+	private static final int[] EULER = { 0, 1, 1, 0, 1, 0, -2, -1, 1, -2, 0, -1, 0, -1, -1, 0 };
+
+	// the squares of each quad in the order of the bits above, -1 outside the board
+	static final int[][] QUAD_SQUARES = new int[QUADS][4];
+	// the four quads that contain a square
+	static final int[][] SQUARE_QUADS = new int[64][4];
+
+	static {
+		for (int qr=0;qr<9;qr++)
+			for (int qc=0;qc<9;qc++){
+				int quad = qr * 9 + qc;
+				for (int i=0;i<4;i++){
+					int row = qr - 1 + i / 2;
+					int col = qc - 1 + i % 2;
+					if (row < 0 || row > 7 || col < 0 || col > 7) {
+						QUAD_SQUARES[quad][i] = -1;
+					}
+					else {
+						int sq = Position.square(row,col);
+						QUAD_SQUARES[quad][i] = sq;
+						// the square is the bottom right of quad (row,col), and so on
+						SQUARE_QUADS[sq][3 - i] = quad;
+					}
+				}
+			}
+	}
+
+	private static int pattern(long pieces, int quad){
+		int[] squares = QUAD_SQUARES[quad];
+		int pattern = 0;
+		for (int i=0;i<4;i++)
+			if (squares[i] >= 0 && (pieces & Position.bit(squares[i])) != 0) pattern |= 1 << i;
+		return pattern;
+	}
+
+	// 4 * euler of pieces, counted from scratch
+	public static int eulerSum(long pieces){
+		int sum = 0;
+		for (int quad=0;quad<QUADS;quad++)
+			sum += EULER[pattern(pieces,quad)];
+		return sum;
+	}
+
+	// how 4 * euler changes when the square sq is added to or removed from pieces
+	static int toggleDelta(long pieces, int sq){
+		long toggled = pieces ^ Position.bit(sq);
+		int delta = 0;
+		int[] quads = SQUARE_QUADS[sq];
+		for (int i=0;i<4;i++)
+			delta += EULER[pattern(toggled,quads[i])] - EULER[pattern(pieces,quads[i])];
+		return delta;
+	}
+}
@@ -0,0 +1,26 @@
+package org.linesOfAction.client;
+
+/**
+ * Switches for the selective search of {@link AlphaBetaPruning}, all on by default.<br>
+ * Turning one off lets us measure what it saves in nodes and what it costs in strength.
+ */
+public class SearchConfig {
+	// null-move pruning, verified by a reduced search before the cutoff is trusted
+	public boolean nullMove = true;
+	// late-move reductions, the later a quiet move comes in the ordering the shallower it is searched
+	public boolean lateMoveReductions = true;
+	// futility pruning, quiet moves near the leaves are skipped when the evaluation is far below alpha
+	public boolean futilityPruning = true;
+	// endgame mode: the node budget of the DfpnSolver tried before the search, 0 turns it off
+	public int solverNodes = 10000;
+
+	// plain full-width alpha-beta
+	public static SearchConfig fullWidth() {
+		SearchConfig config = new SearchConfig();
+		config.nullMove = false;
+		config.lateMoveReductions = false;
+		config.futilityPruning = false;
+		config.solverNodes = 0;
+		return config;
+	}
+}
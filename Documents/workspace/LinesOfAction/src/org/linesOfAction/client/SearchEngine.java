@@ -0,0 +1,13 @@
+package org.linesOfAction.client;
+
+/**
+ * An AI that picks a move for the side to move within a time budget, so that the engines can be
+ * swapped and compared under the same time limits.
+ */
+public interface SearchEngine {
+	/**
+	 * Returns a legal move of the side to move in {@code root}, which is left unchanged. The engine
+	 * should return soon after {@code deadline} expires.
+	 */
+	int findBestMove(Position root, Deadline deadline);
+}
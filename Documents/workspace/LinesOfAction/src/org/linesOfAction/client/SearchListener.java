@@ -0,0 +1,10 @@
+package org.linesOfAction.client;
+
+/**
+ * Hears about the progress of a search, e.g. to show it while the search goes on or to watch how
+ * efficient it is.
+ */
+public interface SearchListener {
+	// an iteration completed, with its best move, score and counts
+	void iterationComplete(SearchStatistics statistics);
+}
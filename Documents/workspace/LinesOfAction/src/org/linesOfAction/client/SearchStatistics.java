@@ -0,0 +1,173 @@
+package org.linesOfAction.client;
+
+/**
+ * What one iteration of {@link AlphaBetaPruning} (or {@link IncrementalSearch}) did, so the
+ * efficiency of the search can be watched: nodes of the main and of the quiescence search, how
+ * often a node cut off and how often its first move did it (how good the move ordering is), how
+ * often the table had the position, and the time, speed and principal variation.<br>
+ * The counts are of this iteration only, including its aspiration re-searches.<br>
+ * {@link #toJson} gives it as one line of JSON without spaces.
+ */
+public class SearchStatistics {
+	private int depth;
+	private int bestMove;
+	private int score;
+	private int[] pv = new int[0];
+	private long nodes;
+	private long quiescenceNodes;
+	// nodes that searched at least one move, and those that cut off
+	private long expandedNodes;
+	private long betaCutoffs;
+	private long firstMoveCutoffs;
+	private long tableProbes;
+	private long tableHits;
+	private long startMillis;
+	private long millis;
+
+	// a new iteration of depth plies starts now
+	void start(int depth, long nowMillis) {
+		this.depth = depth;
+		startMillis = nowMillis;
+		nodes = 0;
+		quiescenceNodes = 0;
+		expandedNodes = 0;
+		betaCutoffs = 0;
+		firstMoveCutoffs = 0;
+		tableProbes = 0;
+		tableHits = 0;
+	}
+
+	void node() {
+		nodes++;
+	}
+
+	void quiescenceNode() {
+		quiescenceNodes++;
+	}
+
+	void probe(boolean hit) {
+		tableProbes++;
+		if (hit) {
+			tableHits++;
+		}
+	}
+
+	void expanded() {
+		expandedNodes++;
+	}
+
+	// a beta cutoff by the move of rank index
+	void cutoff(int index) {
+		betaCutoffs++;
+		if (index == 0) {
+			firstMoveCutoffs++;
+		}
+	}
+
+	// the iteration completed, a copy is kept and the counting goes on in this one
+	SearchStatistics finish(int bestMove, int score, int[] pv, long nowMillis) {
+		SearchStatistics done = new SearchStatistics();
+		done.depth = depth;
+		done.bestMove = bestMove;
+		done.score = score;
+		done.pv = pv;
+		done.nodes = nodes;
+		done.quiescenceNodes = quiescenceNodes;
+		done.expandedNodes = expandedNodes;
+		done.betaCutoffs = betaCutoffs;
+		done.firstMoveCutoffs = firstMoveCutoffs;
+		done.tableProbes = tableProbes;
+		done.tableHits = tableHits;
+		done.millis = nowMillis - startMillis;
+		return done;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	// the best line from the root, as far as the table still has it
+	public int[] getPv() {
+		return pv;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getQuiescenceNodes() {
+		return quiescenceNodes;
+	}
+
+	public double getCutoffRate() {
+		return rate(betaCutoffs, expandedNodes);
+	}
+
+	// the part of the cutoffs made by the first move searched
+	public double getFirstMoveCutoffRate() {
+		return rate(firstMoveCutoffs, betaCutoffs);
+	}
+
+	public long getTableProbes() {
+		return tableProbes;
+	}
+
+	public double getTableHitRate() {
+		return rate(tableHits, tableProbes);
+	}
+
+	public long getMillis() {
+		return millis;
+	}
+
+	// nodes (of both searches) per second
+	public long getNps() {
+		return (nodes + quiescenceNodes) * 1000 / Math.max(1, millis);
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"depth\":").append(depth);
+		json.append(",\"move\":\"").append(moveName(bestMove)).append('"');
+		json.append(",\"score\":").append(score);
+		json.append(",\"nodes\":").append(nodes);
+		json.append(",\"qnodes\":").append(quiescenceNodes);
+		json.append(",\"cutoffRate\":").append(round(getCutoffRate()));
+		json.append(",\"firstMoveCutoffRate\":").append(round(getFirstMoveCutoffRate()));
+		json.append(",\"ttProbes\":").append(tableProbes);
+		json.append(",\"ttHitRate\":").append(round(getTableHitRate()));
+		json.append(",\"millis\":").append(millis);
+		json.append(",\"nps\":").append(getNps());
+		json.append(",\"pv\":[");
+		for (int i = 0; i < pv.length; i++) {
+			json.append(i > 0 ? ",\"" : "\"").append(moveName(pv[i])).append('"');
+		}
+		return json.append("]}").toString();
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+
+	private static double rate(long count, long total) {
+		return total == 0 ? 0 : (double) count / total;
+	}
+
+	// three decimals are enough to watch
+	private static double round(double rate) {
+		return Math.round(rate * 1000) / 1000.0;
+	}
+
+	private static String moveName(int move) {
+		return Position.squareName(Position.moveFrom(move)) + "-" + Position.squareName(Position.moveTo(move));
+	}
+}
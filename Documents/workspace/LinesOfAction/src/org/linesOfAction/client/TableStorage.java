@@ -0,0 +1,18 @@
+package org.linesOfAction.client;
+
+/**
+ * The longs a {@link TranspositionTable} keeps its entries in.<br>
+ * Reads and writes need no locks: the table checks every entry with key XOR data, so a torn entry
+ * written by another thread only reads as a miss.
+ */
+public interface TableStorage {
+	// the number of longs, a power of two
+	long size();
+
+	long get(long index);
+
+	void set(long index, long value);
+
+	// sets every long to 0
+	void clear();
+}
@@ -0,0 +1,141 @@
+package org.linesOfAction.client;
+
+/**
+ * http://en.wikipedia.org/wiki/Transposition_table<br>
+ * A fixed-size table indexed by the low bits of the Zobrist key. Each entry is two longs: the key
+ * XOR the data, and the data. A torn or overwritten entry fails the XOR check and reads as a miss,
+ * so any number of search threads can share a table without locks.<br>
+ * The data packs the best move (bits 0-15), the depth (16-23), the bound (24-25) and the score (32-63).<br>
+ * Entries come in buckets of two, and the {@link Replacement} policy decides which one a new entry
+ * takes. The longs live in a {@link TableStorage}, on the heap by default.
+ */
+public class TranspositionTable {
+	// the score is a lower bound (the search failed high)
+	public static final int LOWER = 1;
+	// the score is an upper bound (the search failed low)
+	public static final int UPPER = 2;
+	public static final int EXACT = LOWER | UPPER;
+
+	// longs per bucket: two entries of two longs
+	static final int BUCKET_SIZE = 4;
+
+	public enum Replacement {
+		// the shallower entry of the bucket is replaced, a position keeps its deepest search
+		DEPTH_PREFERRED,
+		// the newest entries are kept, the older of the two is replaced
+		ALWAYS_REPLACE,
+		// the first entry keeps the deepest search, the second one always takes the rest
+		TWO_TIER
+	}
+
+	private final TableStorage storage;
+	private final Replacement replacement;
+	private final long mask;
+
+	/**
+	 * The table has 2^{@code log2Size} entries on the heap.
+	 */
+	public TranspositionTable(int log2Size) {
+		this(new ArrayStorage(2 << log2Size), Replacement.TWO_TIER);
+	}
+
+	public TranspositionTable(TableStorage storage, Replacement replacement) {
+		this.storage = storage;
+		this.replacement = replacement;
+		mask = storage.size() / BUCKET_SIZE - 1;
+	}
+
+	/**
+	 * Returns the data stored for {@code key}, or 0 if there is none.
+	 */
+	public long probe(long key) {
+		long index = bucket(key);
+		long data = storage.get(index + 1);
+		if ((storage.get(index) ^ data) == key) {
+			return data;
+		}
+		data = storage.get(index + 3);
+		return (storage.get(index + 2) ^ data) == key ? data : 0L;
+	}
+
+	public void store(long key, int depth, int bound, int score, int move) {
+		long index = bucket(key);
+		long first = storage.get(index + 1);
+		long second = storage.get(index + 3);
+		boolean firstMatches = (storage.get(index) ^ first) == key;
+		boolean secondMatches = (storage.get(index + 2) ^ second) == key;
+		long data = pack(depth, bound, score, move);
+		switch (replacement) {
+		case DEPTH_PREFERRED:
+			if (firstMatches || (!secondMatches && depth(first) <= depth(second))) {
+				if (!firstMatches || depth(first) <= depth) {
+					write(index, key, data);
+				}
+			} else if (!secondMatches || depth(second) <= depth) {
+				write(index + 2, key, data);
+			}
+			break;
+		case ALWAYS_REPLACE:
+			if (secondMatches) {
+				write(index + 2, key, data);
+				break;
+			}
+			// the first entry is the newest
+			if (!firstMatches) {
+				copy(index, index + 2);
+			}
+			write(index, key, data);
+			break;
+		case TWO_TIER:
+			if (firstMatches) {
+				if (depth(first) <= depth) {
+					write(index, key, data);
+				}
+			} else if (depth(first) <= depth) {
+				copy(index, index + 2);
+				write(index, key, data);
+			} else {
+				write(index + 2, key, data);
+			}
+			break;
+		}
+	}
+
+	public void clear() {
+		storage.clear();
+	}
+
+	private long bucket(long key) {
+		return (key & mask) * BUCKET_SIZE;
+	}
+
+	private void write(long index, long key, long data) {
+		storage.set(index, key ^ data);
+		storage.set(index + 1, data);
+	}
+
+	private void copy(long from, long to) {
+		storage.set(to, storage.get(from));
+		storage.set(to + 1, storage.get(from + 1));
+	}
+
+	static long pack(int depth, int bound, int score, int move) {
+		return (move & 0xffffL) | ((long) (depth & 0xff) << 16) | ((long) bound << 24) | ((long) score << 32);
+	}
+
+	public static int move(long data) {
+		return (int) data & 0xffff;
+	}
+
+	public static int depth(long data) {
+		return (int) (data >>> 16) & 0xff;
+	}
+
+	public static int bound(long data) {
+		return (int) (data >>> 24) & 3;
+	}
+
+	public static int score(long data) {
+		return (int) (data >> 32);
+	}
+}
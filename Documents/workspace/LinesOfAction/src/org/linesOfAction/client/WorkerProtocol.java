@@ -0,0 +1,64 @@
+package org.linesOfAction.client;
+
+/**
+ * The messages between the page and the engine worker. They are strings of space separated fields,
+ * which postMessage copies as they are.<br>
+ * To the worker: "search id black white turn millis", "ponder id black white turn" (the position
+ * after the AI's move, pondered until the next message) and "newgame".<br>
+ * From the worker: "progress id depth move score statistics" and "bestmove id move", the statistics
+ * are the JSON of {@link SearchStatistics} (it has no spaces).<br>
+ * black and white are the occupancy words of the position, turn is Position.BLACK or Position.WHITE,
+ * and id tells the answers of a search from those of an earlier one.
+ */
+public class WorkerProtocol {
+	public static final String SEARCH = "search";
+	public static final String PONDER = "ponder";
+	public static final String NEW_GAME = "newgame";
+	public static final String PROGRESS = "progress";
+	public static final String BEST_MOVE = "bestmove";
+
+	public static String search(int id, Position position, long millis) {
+		return SEARCH + " " + id + " " + position.getPieces(Position.BLACK) + " " + position.getPieces(Position.WHITE)
+				+ " " + position.getTurn() + " " + millis;
+	}
+
+	public static String ponder(int id, Position position) {
+		return PONDER + " " + id + " " + position.getPieces(Position.BLACK) + " " + position.getPieces(Position.WHITE)
+				+ " " + position.getTurn();
+	}
+
+	public static String newGame() {
+		return NEW_GAME;
+	}
+
+	public static String progress(int id, SearchStatistics statistics) {
+		return PROGRESS + " " + id + " " + statistics.getDepth() + " " + statistics.getBestMove() + " " + statistics.getScore()
+				+ " " + statistics.toJson();
+	}
+
+	public static String bestMove(int id, int move) {
+		return BEST_MOVE + " " + id + " " + move;
+	}
+
+	public static String[] parse(String message) {
+		return message.split(" ");
+	}
+
+	// the fields after the type
+	public static int id(String[] fields) {
+		return Integer.parseInt(fields[1]);
+	}
+
+	public static Position position(String[] fields) {
+		return new Position(Long.parseLong(fields[2]), Long.parseLong(fields[3]), Integer.parseInt(fields[4]));
+	}
+
+	public static long millis(String[] fields) {
+		return Long.parseLong(fields[5]);
+	}
+
+	// the move of a bestmove message
+	public static int move(String[] fields) {
+		return Integer.parseInt(fields[2]);
+	}
+}
@@ -0,0 +1,40 @@
+package org.linesOfAction.client;
+
+/**
+ * http://en.wikipedia.org/wiki/Zobrist_hashing<br>
+ * One random 64-bit key per (color, square) plus one for white to move. The keys come from a fixed
+ * seed, so a position hashes the same way on every run (and in GWT and on the JVM).
+ */
+public class Zobrist {
+	// indexed by color (Position.BLACK or Position.WHITE) and square
+	static final long[][] PIECES = new long[3][64];
+	static final long WHITE_TO_MOVE;
+
+	private static long seed = 0x9E3779B97F4A7C15L;
+
+	static {
+		for (int sq=0;sq<64;sq++){
+			PIECES[Position.BLACK][sq] = next();
+			PIECES[Position.WHITE][sq] = next();
+		}
+		WHITE_TO_MOVE = next();
+	}
+
+	// splitmix64, java.util.Random only gives 48 bits of state
+	private static long next(){
+		seed += 0x9E3779B97F4A7C15L;
+		long z = seed;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public static long hash(long black, long white, int turn){
+		long hash = turn == Position.WHITE ? WHITE_TO_MOVE : 0L;
+		for (int sq=0;sq<64;sq++){
+			if ((black & Position.bit(sq)) != 0) hash ^= PIECES[Position.BLACK][sq];
+			if ((white & Position.bit(sq)) != 0) hash ^= PIECES[Position.WHITE][sq];
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,291 @@
+package org.linesOfAction.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.linesOfAction.client.AIHelper;
+import org.linesOfAction.client.AlphaBetaPruning;
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.TranspositionTable;
+
+/**
+ * Grows an opening book from the initial position with drop-out expansion (Lincke, 2001): every
+ * position of the book tree has a priority, its ply plus {@code dropOutWeight} times how much worse
+ * than the best move each move on the way there is, and the leaf with the lowest priority is
+ * expanded next. Good lines get deep, bad ones drop out early.<br>
+ * Expanding a leaf adds all of its moves, and every new position is scored by a search. The searches
+ * of one round run in parallel on all the cores, one {@link AlphaBetaPruning} per thread sharing a
+ * {@link TranspositionTable}.<br>
+ * Positions are merged by their {@link Symmetry} canonical key, so transpositions and mirrored lines
+ * are searched once. The book file gets every symmetric form of each position, so probing it needs
+ * no symmetry.<br>
+ * Usage: BookBuilder book-file positions-to-expand millis-per-search [threads]
+ */
+public class BookBuilder {
+	// how many points below the best move a book move may score, its weight falls with the difference
+	private static final int BOOK_MARGIN = 1;
+	// 2^22 entries (64MB) shared by the searches
+	private static final int TABLE_SIZE = 22;
+
+	static class Node {
+		// the canonical form, all the moves below are in its frame
+		final Position position;
+		final int ply;
+		// negamax: from the point of view of the side to move
+		int value;
+		int searchValue;
+		int[] moves;
+		Node[] children;
+		// the lowest priority of a path from the root in the current round
+		double priority;
+
+		Node(Position position, int ply) {
+			this.position = position;
+			this.ply = ply;
+		}
+
+		boolean isExpanded() {
+			return children != null;
+		}
+	}
+
+	private final Map<Long, Node> nodes = new HashMap<Long, Node>();
+	private final Node root;
+	private final Heuristic heuristic;
+	private final double dropOutWeight;
+	private final int searchMillis;
+	private final int maxPly;
+	private final ExecutorService executor;
+	private final ThreadLocal<AlphaBetaPruning> engines;
+
+	public BookBuilder(final Heuristic heuristic, int threads, double dropOutWeight, int searchMillis, int maxPly) {
+		this.heuristic = heuristic;
+		this.dropOutWeight = dropOutWeight;
+		this.searchMillis = searchMillis;
+		this.maxPly = maxPly;
+		final TranspositionTable table = new TranspositionTable(TABLE_SIZE);
+		engines = new ThreadLocal<AlphaBetaPruning>() {
+			@Override
+			protected AlphaBetaPruning initialValue() {
+				return new AlphaBetaPruning(heuristic, table);
+			}
+		};
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "book-builder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		root = node(Position.initial(), 0);
+	}
+
+	/**
+	 * Expands {@code count} more positions, {@code batch} of them at a time.
+	 */
+	public void expand(int count, int batch) throws InterruptedException {
+		int expanded = 0;
+		while (expanded < count) {
+			List<Node> leaves = selectLeaves(Math.min(batch, count - expanded));
+			if (leaves.isEmpty()) {
+				return;
+			}
+			List<Node> added = new ArrayList<Node>();
+			for (Node leaf : leaves) {
+				expand(leaf, added);
+			}
+			evaluate(added);
+			propagate();
+			expanded += leaves.size();
+		}
+	}
+
+	// adds the children of leaf, the positions not seen before go to added
+	private void expand(Node leaf, List<Node> added) {
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = leaf.position.generateMoves(moves);
+		leaf.moves = new int[count];
+		leaf.children = new Node[count];
+		for (int i = 0; i < count; i++) {
+			leaf.moves[i] = moves[i];
+			Position child = leaf.position.play(moves[i]);
+			Node node = nodes.get(canonicalKey(child));
+			if (node == null) {
+				node = node(child, leaf.ply + 1);
+				added.add(node);
+			}
+			leaf.children[i] = node;
+		}
+	}
+
+	private Node node(Position position, int ply) {
+		Node node = new Node(Symmetry.position(Symmetry.canonical(position), position), ply);
+		nodes.put(node.position.getHash(), node);
+		return node;
+	}
+
+	private static long canonicalKey(Position position) {
+		return Symmetry.position(Symmetry.canonical(position), position).getHash();
+	}
+
+	// scores the nodes with one search each, in parallel
+	private void evaluate(List<Node> added) throws InterruptedException {
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (final Node node : added) {
+			futures.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return search(node.position);
+				}
+			}));
+		}
+		for (int i = 0; i < added.size(); i++) {
+			try {
+				added.get(i).searchValue = futures.get(i).get();
+				added.get(i).value = added.get(i).searchValue;
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	// the score of position for the side to move
+	private int search(Position position) {
+		if (AIHelper.checkOver(position)) {
+			int value = heuristic.getStateValue(position);
+			return position.getTurn() == Position.WHITE ? value : -value;
+		}
+		// the engine doesn't search a single legal move, so forced moves are played out
+		int[] moves = new int[Position.MAX_MOVES];
+		if (position.generateMoves(moves) == 1) {
+			return -search(position.play(moves[0]));
+		}
+		AlphaBetaPruning engine = engines.get();
+		engine.findBestMove(position, AlphaBetaPruning.MAX_DEPTH, Deadline.after(searchMillis));
+		return engine.getScore();
+	}
+
+	// minimax of the searched leaves up the tree, a position met again on its own path keeps its search value
+	private void propagate() {
+		propagate(root, new HashSet<Node>(), new HashSet<Node>());
+	}
+
+	private int propagate(Node node, Set<Node> done, Set<Node> path) {
+		if (!node.isExpanded() || done.contains(node)) {
+			return node.value;
+		}
+		if (!path.add(node)) {
+			return node.searchValue;
+		}
+		int best = -Integer.MAX_VALUE;
+		for (Node child : node.children) {
+			best = Math.max(best, -propagate(child, done, path));
+		}
+		node.value = node.children.length == 0 ? node.searchValue : best;
+		path.remove(node);
+		done.add(node);
+		return node.value;
+	}
+
+	// the unexpanded positions of the lowest priority (Dijkstra from the root)
+	private List<Node> selectLeaves(int count) {
+		for (Node node : nodes.values()) {
+			node.priority = Double.MAX_VALUE;
+		}
+		PriorityQueue<Node> queue = new PriorityQueue<Node>(16, new Comparator<Node>() {
+			@Override
+			public int compare(Node a, Node b) {
+				return Double.compare(a.priority, b.priority);
+			}
+		});
+		root.priority = 0;
+		queue.add(root);
+		List<Node> leaves = new ArrayList<Node>();
+		Set<Node> seen = new HashSet<Node>();
+		while (!queue.isEmpty() && leaves.size() < count) {
+			Node node = queue.poll();
+			if (!seen.add(node)) {
+				continue;
+			}
+			if (!node.isExpanded()) {
+				if (node.ply < maxPly && !AIHelper.checkOver(node.position)) {
+					leaves.add(node);
+				}
+				continue;
+			}
+			for (Node child : node.children) {
+				// node.value + child.value is how much worse than the best move this one is
+				double priority = node.priority + 1 + dropOutWeight * Math.max(node.value + child.value, 0);
+				if (priority < child.priority) {
+					child.priority = priority;
+					queue.add(child);
+				}
+			}
+		}
+		return leaves;
+	}
+
+	/**
+	 * Writes the book: for every expanded position, the moves that score at most BOOK_MARGIN below
+	 * the best one, in every symmetric form of the position.
+	 */
+	public void write(File file) throws IOException {
+		List<MappedOpeningBook.Entry> entries = new ArrayList<MappedOpeningBook.Entry>();
+		for (Node node : nodes.values()) {
+			if (!node.isExpanded()) {
+				continue;
+			}
+			Set<Long> keys = new HashSet<Long>();
+			for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+				long key = Symmetry.position(symmetry, node.position).getHash();
+				if (!keys.add(key)) {
+					continue;
+				}
+				for (int i = 0; i < node.children.length; i++) {
+					int loss = node.value + node.children[i].value;
+					if (loss <= BOOK_MARGIN) {
+						entries.add(new MappedOpeningBook.Entry(key, Symmetry.move(symmetry, node.moves[i]), BOOK_MARGIN + 1 - loss));
+					}
+				}
+			}
+		}
+		MappedOpeningBook.write(file, entries);
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("usage: BookBuilder book-file positions-to-expand millis-per-search [threads]");
+			return;
+		}
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		BookBuilder builder = new BookBuilder(new Heuristic(), threads, 1.0, Integer.parseInt(args[2]), 16);
+		builder.expand(Integer.parseInt(args[1]), threads);
+		builder.write(new File(args[0]));
+		builder.shutdown();
+	}
+}
@@ -0,0 +1,145 @@
+package org.linesOfAction.server;
+
+import java.io.Closeable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.linesOfAction.client.OpeningBook;
+import org.linesOfAction.client.Position;
+
+/**
+ * An opening book file, memory-mapped and probed in place: nothing is loaded on the heap, and a
+ * probe is a binary search over the records.<br>
+ * The file is a header (magic, format version, number of records and the Zobrist key of the initial
+ * position) followed by records of 16 bytes (Zobrist key, move, weight), sorted by key. A position
+ * has one record per book move, and a probe picks one of them at random in proportion to the weights.<br>
+ * The file is big-endian so that a book can be copied between machines, and it can't be larger than 2GB.
+ */
+public class MappedOpeningBook implements OpeningBook, Closeable {
+	private static final long MAGIC = 0x4c4f41424f4f4b31L; // "LOABOOK1"
+	private static final long VERSION = 1;
+	private static final int HEADER_BYTES = 32;
+	private static final int RECORD_BYTES = 16;
+
+	public static class Entry implements Comparable<Entry> {
+		final long key;
+		final int move;
+		final int weight;
+
+		public Entry(long key, int move, int weight) {
+			this.key = key;
+			this.move = move;
+			this.weight = weight;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			return key < o.key ? -1 : key > o.key ? 1 : move - o.move;
+		}
+	}
+
+	private final RandomAccessFile file;
+	private final MappedByteBuffer records;
+	private final int count;
+	private final Random random;
+
+	public MappedOpeningBook(File path) throws IOException {
+		this(path, new Random());
+	}
+
+	public MappedOpeningBook(File path, Random random) throws IOException {
+		this.random = random;
+		file = new RandomAccessFile(path, "r");
+		FileChannel channel = file.getChannel();
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getLong(0) != MAGIC || header.getLong(8) != VERSION) {
+			file.close();
+			throw new IOException(path + " is not an opening book");
+		}
+		if (header.getLong(24) != Position.initial().getHash()) {
+			file.close();
+			throw new IOException(path + " was written with other Zobrist keys");
+		}
+		count = (int) header.getLong(16);
+		records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * RECORD_BYTES);
+	}
+
+	/**
+	 * Writes {@code entries} (in any order) to {@code path} in the format read by this class.
+	 */
+	public static void write(File path, List<Entry> entries) throws IOException {
+		List<Entry> sorted = new ArrayList<Entry>(entries);
+		Collections.sort(sorted);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		try {
+			out.writeLong(MAGIC);
+			out.writeLong(VERSION);
+			out.writeLong(sorted.size());
+			out.writeLong(Position.initial().getHash());
+			for (Entry entry : sorted) {
+				out.writeLong(entry.key);
+				out.writeInt(entry.move);
+				out.writeInt(entry.weight);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public int probe(Position position) {
+		long key = position.getHash();
+		// the first record with this key or a larger one
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (key(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int total = 0;
+		for (int i = low; i < count && key(i) == key; i++) {
+			total += weight(i);
+		}
+		if (total <= 0) {
+			return 0;
+		}
+		int pick = random.nextInt(total);
+		for (int i = low; ; i++) {
+			pick -= weight(i);
+			if (pick < 0) {
+				return records.getInt(i * RECORD_BYTES + 8);
+			}
+		}
+	}
+
+	private long key(int record) {
+		return records.getLong(record * RECORD_BYTES);
+	}
+
+	private int weight(int record) {
+		return records.getInt(record * RECORD_BYTES + 12);
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
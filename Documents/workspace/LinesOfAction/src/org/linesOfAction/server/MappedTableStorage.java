@@ -0,0 +1,117 @@
+package org.linesOfAction.server;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.TableStorage;
+import org.linesOfAction.client.TranspositionTable;
+
+/**
+ * Table storage in a memory-mapped file, off the heap and as large as the disk allows.<br>
+ * The file outlives the process, so a long analysis can stop and later resume with everything its
+ * table has learned: call {@link #flush} at a checkpoint and {@link #close} at the end.<br>
+ * The file starts with a header (magic, layout version, number of longs and the Zobrist key of the
+ * initial position). A file with another header was written by another table or with other keys,
+ * and is cleared when opened.<br>
+ * A mapped buffer can't be larger than 2GB, so the longs are split into chunks of 1GB.
+ */
+public class MappedTableStorage implements TableStorage, Closeable {
+	private static final long MAGIC = 0x4c4f415454424c31L; // "LOATTBL1"
+	private static final long VERSION = 1;
+	private static final int HEADER_BYTES = 64;
+	// 2^27 longs (1GB) per chunk
+	private static final int CHUNK_SHIFT = 27;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	private final RandomAccessFile file;
+	private final MappedByteBuffer header;
+	private final MappedByteBuffer[] chunks;
+	private final long size;
+
+	/**
+	 * Opens (or creates) a table of 2^{@code log2Size} entries in {@code path}.
+	 */
+	public static TranspositionTable open(File path, int log2Size, TranspositionTable.Replacement replacement) throws IOException {
+		return new TranspositionTable(new MappedTableStorage(path, 2L << log2Size), replacement);
+	}
+
+	public MappedTableStorage(File path, long size) throws IOException {
+		if (Long.bitCount(size) != 1) {
+			throw new IllegalArgumentException("size must be a power of two: " + size);
+		}
+		this.size = size;
+		file = new RandomAccessFile(path, "rw");
+		FileChannel channel = file.getChannel();
+		long length = HEADER_BYTES + size * 8;
+		ByteBuffer old = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+		channel.read(old, 0);
+		boolean valid = file.length() == length && old.getLong(0) == MAGIC && old.getLong(8) == VERSION
+				&& old.getLong(16) == size && old.getLong(24) == Position.initial().getHash();
+		if (!valid) {
+			// a file cut to 0 and grown again reads as zeros, which is an empty table
+			file.setLength(0);
+			file.setLength(length);
+		}
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+		header.order(ByteOrder.nativeOrder());
+		int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+		chunks = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long first = (long) i << CHUNK_SHIFT;
+			chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first * 8, Math.min(size - first, CHUNK_MASK + 1) * 8);
+			chunks[i].order(ByteOrder.nativeOrder());
+		}
+		if (!valid) {
+			header.putLong(0, MAGIC);
+			header.putLong(8, VERSION);
+			header.putLong(16, size);
+			header.putLong(24, Position.initial().getHash());
+			header.force();
+		}
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long get(long index) {
+		return chunks[(int) (index >>> CHUNK_SHIFT)].getLong((int) (index & CHUNK_MASK) << 3);
+	}
+
+	@Override
+	public void set(long index, long value) {
+		chunks[(int) (index >>> CHUNK_SHIFT)].putLong((int) (index & CHUNK_MASK) << 3, value);
+	}
+
+	@Override
+	public void clear() {
+		for (MappedByteBuffer chunk : chunks) {
+			for (int i = 0; i < chunk.capacity(); i += 8) {
+				chunk.putLong(i, 0L);
+			}
+		}
+	}
+
+	// writes the table to the file, the entries other threads write meanwhile may or may not be included
+	public void flush() {
+		for (MappedByteBuffer chunk : chunks) {
+			chunk.force();
+		}
+	}
+
+	// the mapping itself stays until the buffers are garbage collected
+	@Override
+	public void close() throws IOException {
+		flush();
+		file.close();
+	}
+}
@@ -0,0 +1,88 @@
+package org.linesOfAction.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.MonteCarloTreeSearch;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.SearchEngine;
+
+/**
+ * Tree-parallel {@link MonteCarloTreeSearch} on the JVM: all the threads grow the same tree, each
+ * with its own random numbers. The calling thread runs too, and the helpers are stopped through
+ * their deadline when it is done.
+ */
+public class ParallelMonteCarlo implements SearchEngine {
+	private final MonteCarloTreeSearch search;
+	private final int threads;
+	private final ExecutorService executor;
+	private final Random seeds = new Random();
+
+	public ParallelMonteCarlo(Heuristic heuristic) {
+		this(heuristic, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelMonteCarlo(Heuristic heuristic, int threads) {
+		search = new MonteCarloTreeSearch(heuristic);
+		this.threads = threads;
+		executor = Executors.newFixedThreadPool(Math.max(1, threads - 1), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mcts-helper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		search.setMaxIterations(maxIterations);
+	}
+
+	@Override
+	public int findBestMove(Position root, Deadline deadline) {
+		search.start(root);
+		final Deadline helperDeadline = Deadline.after(deadline.remainingMillis());
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int i = 1; i < threads; i++) {
+			final Random random = new Random(seeds.nextLong());
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					search.run(helperDeadline, random);
+				}
+			}));
+		}
+		try {
+			search.run(deadline, new Random(seeds.nextLong()));
+		} finally {
+			helperDeadline.stop();
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		}
+		return search.getBestMove();
+	}
+
+	public int getIterations() {
+		return search.getIterations();
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
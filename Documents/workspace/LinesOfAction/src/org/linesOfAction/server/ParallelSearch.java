@@ -0,0 +1,95 @@
+package org.linesOfAction.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.linesOfAction.client.AlphaBetaPruning;
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.OpeningBook;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.SearchEngine;
+import org.linesOfAction.client.TranspositionTable;
+
+/**
+ * Lazy SMP on the JVM: every thread runs its own {@link AlphaBetaPruning} on the same root, and
+ * they share one {@link TranspositionTable} (its entries are checked with key XOR data, so no locks
+ * are needed). The main search runs on the calling thread and decides the move, the helpers only
+ * fill the table. When the main search is done the helpers are stopped through their deadline.<br>
+ * The GWT client keeps using AlphaBetaPruning directly on its single thread.
+ */
+public class ParallelSearch implements SearchEngine {
+	// 2^22 entries (64MB)
+	public static final int DEFAULT_TABLE_SIZE = 22;
+
+	private final AlphaBetaPruning main;
+	private final AlphaBetaPruning[] helpers;
+	private final ExecutorService executor;
+
+	public ParallelSearch(Heuristic heuristic) {
+		this(heuristic, Runtime.getRuntime().availableProcessors(), new TranspositionTable(DEFAULT_TABLE_SIZE));
+	}
+
+	public ParallelSearch(Heuristic heuristic, int threads, TranspositionTable table) {
+		main = new AlphaBetaPruning(heuristic, table);
+		helpers = new AlphaBetaPruning[threads - 1];
+		for (int i = 0; i < helpers.length; i++) {
+			helpers[i] = new AlphaBetaPruning(heuristic, table);
+			helpers[i].setHelperIndex(i + 1);
+		}
+		executor = Executors.newFixedThreadPool(Math.max(1, helpers.length), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// only the main search probes the book, the helpers are stopped as soon as it returns a book move
+	public void setBook(OpeningBook book) {
+		main.setBook(book);
+	}
+
+	@Override
+	public int findBestMove(Position root, Deadline deadline) {
+		return findBestMove(root, AlphaBetaPruning.MAX_DEPTH, deadline);
+	}
+
+	public int findBestMove(final Position root, final int depth, Deadline deadline) {
+		final Deadline helperDeadline = Deadline.after(deadline.remainingMillis());
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (final AlphaBetaPruning helper : helpers) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					helper.findBestMove(root, depth, helperDeadline);
+				}
+			}));
+		}
+		try {
+			return main.findBestMove(root, depth, deadline);
+		} finally {
+			helperDeadline.stop();
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		}
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,352 @@
+package org.linesOfAction.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.game_api.GameApi.Operation;
+import org.game_api.GameApi.Set;
+import org.linesOfAction.client.AIHelper;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.Position;
+
+/**
+ * Counts the positions {@code depth} moves after a position (perft), to check a move generator
+ * and to measure how fast it is.<br>
+ * A position where a side is connected ends the game, so it has no moves; the positions at the
+ * last ply are counted whether they end the game or not.<br>
+ * The subtrees above {@link #SPLIT_DEPTH} are split over a fork-join pool. An optional table
+ * keeps the count of every subtree, so a transposition is counted once; its entries are checked
+ * with key XOR data like the {@link org.linesOfAction.client.TranspositionTable}, so the threads
+ * share it without locks.<br>
+ * {@link #verify} instead walks the tree comparing Position.generateMoves at every node with the
+ * moves of Heuristic.getOrderedMoves and with a plain implementation of the rules on a board array.<br>
+ * Usage: Perft depth [-divide] [-hash log2-entries] [-threads n] [-verify] [-position squares turn]<br>
+ * The squares are 64 characters from 1A to 8H ('.', 'b' or 'w'), and the turn is 'b' or 'w'.
+ */
+public class Perft {
+	// subtrees of this depth or less are counted on one thread
+	static final int SPLIT_DEPTH = 3;
+
+	private final ForkJoinPool pool;
+	// key XOR data, data: the count (bits 8-63) and the depth (bits 0-7)
+	private final long[] table;
+	private final int mask;
+
+	public Perft(int threads, int log2TableSize) {
+		pool = new ForkJoinPool(threads);
+		table = log2TableSize > 0 ? new long[2 << log2TableSize] : null;
+		mask = (1 << log2TableSize) - 1;
+	}
+
+	public long perft(Position position, int depth) {
+		return pool.invoke(new PerftTask(position.copy(), depth));
+	}
+
+	/**
+	 * The count of every root move, in the order they are generated.
+	 */
+	public long[] divide(Position position, int[] moves, int count, int depth) {
+		final List<PerftTask> tasks = new ArrayList<PerftTask>();
+		for (int i = 0; i < count; i++) {
+			tasks.add(new PerftTask(position.play(moves[i]), depth - 1));
+		}
+		// the root moves are forked together, like the children in PerftTask
+		return pool.invoke(new RecursiveTask<long[]>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected long[] compute() {
+				long[] counts = new long[tasks.size()];
+				int i = 0;
+				for (PerftTask task : invokeAll(tasks)) {
+					counts[i++] = task.join();
+				}
+				return counts;
+			}
+		});
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private class PerftTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final Position position;
+		private final int depth;
+
+		PerftTask(Position position, int depth) {
+			this.position = position;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (depth <= SPLIT_DEPTH) {
+				int[][] moves = new int[depth + 1][Position.MAX_MOVES];
+				return count(position, depth, moves);
+			}
+			if (AIHelper.checkOver(position)) {
+				return 0L;
+			}
+			long stored = probe(position.getHash(), depth);
+			if (stored >= 0) {
+				return stored;
+			}
+			int[] moves = new int[Position.MAX_MOVES];
+			int count = position.generateMoves(moves);
+			List<PerftTask> children = new ArrayList<PerftTask>();
+			for (int i = 0; i < count; i++) {
+				children.add(new PerftTask(position.play(moves[i]), depth - 1));
+			}
+			long total = 0;
+			for (PerftTask child : invokeAll(children)) {
+				total += child.join();
+			}
+			store(position.getHash(), depth, total);
+			return total;
+		}
+	}
+
+	// the sequential count, with the moves of each depth in their own buffer
+	private long count(Position position, int depth, int[][] moves) {
+		if (depth == 0) {
+			return 1;
+		}
+		if (AIHelper.checkOver(position)) {
+			return 0;
+		}
+		int[] possibleMoves = moves[depth];
+		int count = position.generateMoves(possibleMoves);
+		// the leaves are not made, their number is the number of moves
+		if (depth == 1) {
+			return count;
+		}
+		long stored = probe(position.getHash(), depth);
+		if (stored >= 0) {
+			return stored;
+		}
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(possibleMoves[i]);
+			total += count(position, depth - 1, moves);
+			position.unmakeMove(possibleMoves[i]);
+		}
+		store(position.getHash(), depth, total);
+		return total;
+	}
+
+	// the count of the subtree, -1 if it isn't in the table
+	private long probe(long key, int depth) {
+		if (table == null) {
+			return -1;
+		}
+		int index = ((int) key & mask) * 2;
+		long data = table[index + 1];
+		if ((table[index] ^ data) != key || (data & 0xff) != depth) {
+			return -1;
+		}
+		return data >>> 8;
+	}
+
+	private void store(long key, int depth, long count) {
+		if (table == null) {
+			return;
+		}
+		int index = ((int) key & mask) * 2;
+		long data = count << 8 | depth;
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	/**
+	 * Walks the tree to {@code depth} and throws an IllegalStateException at the first position where
+	 * the generated moves differ from those of Heuristic.getOrderedMoves or of the plain rules.
+	 * Returns the perft count.
+	 */
+	public static long verify(Position position, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		if (AIHelper.checkOver(position)) {
+			return 0;
+		}
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		int[] generated = new int[count];
+		for (int i = 0; i < count; i++) {
+			generated[i] = moves[i] & ~Position.CAPTURE;
+		}
+		Arrays.sort(generated);
+		int[] ordered = orderedMoves(position);
+		int[] plain = plainMoves(position);
+		if (!Arrays.equals(generated, ordered) || !Arrays.equals(generated, plain)) {
+			throw new IllegalStateException("moves differ in " + position.toState() + ": generated " + names(generated)
+					+ ", getOrderedMoves " + names(ordered) + ", rules " + names(plain));
+		}
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			total += verify(position.play(moves[i]), depth - 1);
+		}
+		return total;
+	}
+
+	// the moves of Heuristic.getOrderedMoves, read back from their operations, sorted
+	static int[] orderedMoves(Position position) {
+		List<Integer> moves = new ArrayList<Integer>();
+		Map<String, Object> state = position.toState();
+		for (List<Operation> operations : new Heuristic().getOrderedMoves(state)) {
+			moves.add(Position.move(Position.square(((Set) operations.get(0)).getKey()), Position.square(((Set) operations.get(1)).getKey())));
+		}
+		int[] ret = new int[moves.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = moves.get(i);
+		}
+		Arrays.sort(ret);
+		return ret;
+	}
+
+	/**
+	 * The moves by the rules, on a board array and without any tables: a piece moves at most as many
+	 * squares as there are pieces on its line, it may jump its own pieces but not the enemy's, and it
+	 * may not land on its own piece. Sorted, without the capture flag.
+	 */
+	static int[] plainMoves(Position position) {
+		int[][] board = new int[8][8];
+		for (int sq = 0; sq < 64; sq++) {
+			board[sq / 8][sq % 8] = position.pieceAt(sq);
+		}
+		int turn = position.getTurn();
+		int[][] directions = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+		List<Integer> moves = new ArrayList<Integer>();
+		for (int row = 0; row < 8; row++) {
+			for (int col = 0; col < 8; col++) {
+				if (board[row][col] != turn) {
+					continue;
+				}
+				for (int[] direction : directions) {
+					int pieces = 0;
+					for (int i = -7; i <= 7; i++) {
+						int r = row + i * direction[0];
+						int c = col + i * direction[1];
+						if (r >= 0 && r < 8 && c >= 0 && c < 8 && board[r][c] != Position.EMPTY) {
+							pieces++;
+						}
+					}
+					for (int sign = -1; sign <= 1; sign += 2) {
+						for (int distance = 1; distance <= pieces; distance++) {
+							int r = row + sign * distance * direction[0];
+							int c = col + sign * distance * direction[1];
+							if (r < 0 || r >= 8 || c < 0 || c >= 8 || board[r][c] == turn || jumpsEnemy(board, row, col, sign * direction[0], sign * direction[1], distance, turn)) {
+								continue;
+							}
+							moves.add(Position.move(Position.square(row, col), Position.square(r, c)));
+						}
+					}
+				}
+			}
+		}
+		int[] ret = new int[moves.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = moves.get(i);
+		}
+		Arrays.sort(ret);
+		return ret;
+	}
+
+	// an enemy piece between (row,col) and the square distance steps away
+	private static boolean jumpsEnemy(int[][] board, int row, int col, int rowStep, int colStep, int distance, int turn) {
+		for (int i = 1; i < distance; i++) {
+			if (board[row + i * rowStep][col + i * colStep] == 3 - turn) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String names(int[] moves) {
+		StringBuilder str = new StringBuilder();
+		for (int move : moves) {
+			str.append(' ').append(moveName(move));
+		}
+		return str.toString();
+	}
+
+	static String moveName(int move) {
+		return Position.squareName(Position.moveFrom(move)) + "-" + Position.squareName(Position.moveTo(move));
+	}
+
+	static Position parsePosition(String squares, String turn) {
+		if (squares.length() != 64) {
+			throw new IllegalArgumentException("a position needs 64 squares: " + squares);
+		}
+		long black = 0L;
+		long white = 0L;
+		for (int sq = 0; sq < 64; sq++) {
+			char square = squares.charAt(sq);
+			if (square == 'b') {
+				black |= 1L << sq;
+			} else if (square == 'w') {
+				white |= 1L << sq;
+			}
+		}
+		return new Position(black, white, turn.equals("b") ? Position.BLACK : Position.WHITE);
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("usage: Perft depth [-divide] [-hash log2-entries] [-threads n] [-verify] [-position squares turn]");
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		boolean divide = false;
+		boolean verify = false;
+		int log2TableSize = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		Position position = Position.initial();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-divide")) {
+				divide = true;
+			} else if (args[i].equals("-verify")) {
+				verify = true;
+			} else if (args[i].equals("-hash")) {
+				log2TableSize = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-position")) {
+				position = parsePosition(args[i + 1], args[i + 2]);
+				i += 2;
+			} else {
+				throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+		long start = System.nanoTime();
+		long nodes;
+		if (verify) {
+			nodes = verify(position, depth);
+		} else {
+			Perft perft = new Perft(threads, log2TableSize);
+			if (divide && depth > 0 && !AIHelper.checkOver(position)) {
+				int[] moves = new int[Position.MAX_MOVES];
+				int count = position.generateMoves(moves);
+				long[] counts = perft.divide(position, moves, count, depth);
+				nodes = 0;
+				for (int i = 0; i < count; i++) {
+					System.out.println(moveName(moves[i]) + ": " + counts[i]);
+					nodes += counts[i];
+				}
+				System.out.println(count + " moves");
+			} else {
+				nodes = perft.perft(position, depth);
+			}
+			perft.shutdown();
+		}
+		long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+		System.out.println("perft(" + depth + ") = " + nodes + " in " + millis + "ms, " + nodes * 1000 / millis + " nodes/s");
+	}
+}
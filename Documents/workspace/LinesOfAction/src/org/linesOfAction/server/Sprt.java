@@ -0,0 +1,118 @@
+package org.linesOfAction.server;
+
+/**
+ * The sequential probability ratio test of a match, with the usual normal approximation of the
+ * log-likelihood ratio from the game scores: H0 says the candidate is {@code elo0} stronger than
+ * the baseline, H1 that it is {@code elo1} stronger. After every game the ratio is compared with
+ * bounds set by the error rates {@code alpha} and {@code beta}, and the match stops as soon as
+ * it crosses one of them.<br>
+ * It also gives the Elo difference the games so far measure, with its 95% confidence interval.
+ */
+public class Sprt {
+	public static final int CONTINUE = 0;
+	public static final int ACCEPT_H0 = 1;
+	public static final int ACCEPT_H1 = 2;
+
+	// the two sided 95% quantile of the normal distribution
+	private static final double Z_95 = 1.959964;
+
+	private final double elo0;
+	private final double elo1;
+	private final double lowerBound;
+	private final double upperBound;
+	private int wins;
+	private int draws;
+	private int losses;
+
+	public Sprt(double elo0, double elo1, double alpha, double beta) {
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		lowerBound = Math.log(beta / (1 - alpha));
+		upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	// score is the candidate's: 1, 0.5 or 0
+	public synchronized void add(double score) {
+		if (score > 0.5) {
+			wins++;
+		} else if (score < 0.5) {
+			losses++;
+		} else {
+			draws++;
+		}
+	}
+
+	public synchronized int getGames() {
+		return wins + draws + losses;
+	}
+
+	/**
+	 * The log-likelihood ratio of H1 against H0, 0 until the scores vary.
+	 */
+	public synchronized double llr() {
+		int games = getGames();
+		double variance = variance();
+		if (variance == 0) {
+			return 0;
+		}
+		double score0 = expectedScore(elo0);
+		double score1 = expectedScore(elo1);
+		return (score1 - score0) * (2 * score() - score0 - score1) * games / (2 * variance);
+	}
+
+	public synchronized int status() {
+		double llr = llr();
+		return llr >= upperBound ? ACCEPT_H1 : llr <= lowerBound ? ACCEPT_H0 : CONTINUE;
+	}
+
+	// the Elo difference the games measure
+	public synchronized double elo() {
+		return elo(score());
+	}
+
+	// half the width of the 95% confidence interval of elo, infinite until the scores vary
+	public synchronized double eloError() {
+		int games = getGames();
+		double error = games == 0 ? 0 : Z_95 * Math.sqrt(variance() / games);
+		if (error == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return (elo(score() + error) - elo(score() - error)) / 2;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d games +%d =%d -%d, elo %.1f +- %.1f, llr %.2f (%.2f, %.2f)",
+				getGames(), wins, draws, losses, elo(), eloError(), llr(), lowerBound, upperBound);
+	}
+
+	// the expected score of a side elo points stronger
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	static double elo(double score) {
+		if (score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	private double score() {
+		int games = getGames();
+		return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+	}
+
+	// the variance of a single game's score
+	private double variance() {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		double score = score();
+		return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score) + losses * score * score) / games;
+	}
+}
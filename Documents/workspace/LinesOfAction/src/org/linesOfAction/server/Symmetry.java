@@ -0,0 +1,54 @@
+package org.linesOfAction.server;
+
+import org.linesOfAction.client.Position;
+
+/**
+ * The symmetries of the board that keep the initial position: mirroring the columns, mirroring the
+ * rows, and both (a half turn). Black's pieces stay on the rows and white's on the columns, so the
+ * diagonal mirrors and quarter turns, which swap them, are left out.<br>
+ * Symmetric positions have the same value, so the book builder searches only one of them, the one
+ * with the smallest Zobrist key.
+ */
+public class Symmetry {
+	// 0 is the identity, bit 1 mirrors the columns and bit 2 the rows
+	public static final int COUNT = 4;
+
+	public static int square(int symmetry, int sq){
+		int row = sq / 8;
+		int col = sq % 8;
+		if ((symmetry & 1) != 0) col = 7 - col;
+		if ((symmetry & 2) != 0) row = 7 - row;
+		return Position.square(row,col);
+	}
+
+	public static long pieces(int symmetry, long pieces){
+		long result = 0L;
+		for (; pieces != 0; pieces &= pieces - 1)
+			result |= 1L << square(symmetry,Long.numberOfTrailingZeros(pieces));
+		return result;
+	}
+
+	public static Position position(int symmetry, Position position){
+		return new Position(pieces(symmetry,position.getPieces(Position.BLACK)),
+				pieces(symmetry,position.getPieces(Position.WHITE)),position.getTurn());
+	}
+
+	public static int move(int symmetry, int move){
+		return Position.move(square(symmetry,Position.moveFrom(move)),square(symmetry,Position.moveTo(move)))
+				| (move & Position.CAPTURE);
+	}
+
+	// the symmetry that gives the canonical form of position (the smallest key)
+	public static int canonical(Position position){
+		int best = 0;
+		long bestKey = position.getHash();
+		for (int symmetry=1;symmetry<COUNT;symmetry++){
+			long key = position(symmetry,position).getHash();
+			if (key < bestKey){
+				best = symmetry;
+				bestKey = key;
+			}
+		}
+		return best;
+	}
+}
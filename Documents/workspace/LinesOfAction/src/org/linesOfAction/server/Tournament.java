@@ -0,0 +1,211 @@
+package org.linesOfAction.server;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.linesOfAction.client.AIHelper;
+import org.linesOfAction.client.AlphaBetaPruning;
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.Heuristic;
+import org.linesOfAction.client.MonteCarloTreeSearch;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.SearchConfig;
+import org.linesOfAction.client.SearchEngine;
+
+/**
+ * Plays a candidate engine against a baseline without any UI, one game per core, and stops when the
+ * {@link Sprt} decides (or after a number of games).<br>
+ * Every opening is a few random moves from the initial position, and it is played twice with the
+ * colors swapped, so neither engine gets the better openings. Every game gets new engines, so what
+ * one game leaves in a table doesn't help the next.<br>
+ * An engine is given as a spec: "alphabeta" or "montecarlo", and for alphabeta the SearchConfig
+ * switches to change after a colon, e.g. "alphabeta:-nullMove,-futilityPruning,solverNodes=0".<br>
+ * Usage: Tournament candidate baseline games millis-per-move [threads]
+ */
+public class Tournament {
+	// the random moves of an opening
+	static final int OPENING_PLIES = 4;
+	// a game that goes on this long is a draw
+	static final int MAX_GAME_PLIES = 300;
+	// the SPRT of an engine change: no gain against a gain of 10 Elo, both with 5% errors
+	static final double ELO0 = 0;
+	static final double ELO1 = 10;
+	static final double ERROR_RATE = 0.05;
+	// how often the standings are printed
+	private static final int REPORT_GAMES = 20;
+
+	// a new engine for every game
+	public interface EngineFactory {
+		SearchEngine create();
+	}
+
+	private final EngineFactory candidate;
+	private final EngineFactory baseline;
+	private final long millis;
+	private final int threads;
+	private final Sprt sprt;
+
+	public Tournament(EngineFactory candidate, EngineFactory baseline, long millis, int threads, Sprt sprt) {
+		this.candidate = candidate;
+		this.baseline = baseline;
+		this.millis = millis;
+		this.threads = threads;
+		this.sprt = sprt;
+	}
+
+	public static EngineFactory engine(String spec) {
+		int colon = spec.indexOf(':');
+		String name = colon < 0 ? spec : spec.substring(0, colon);
+		if (name.equals("montecarlo")) {
+			return new EngineFactory() {
+				@Override
+				public SearchEngine create() {
+					return new MonteCarloTreeSearch(new Heuristic());
+				}
+			};
+		}
+		if (!name.equals("alphabeta")) {
+			throw new IllegalArgumentException("unknown engine " + name);
+		}
+		final SearchConfig config = new SearchConfig();
+		for (String option : colon < 0 ? new String[0] : spec.substring(colon + 1).split(",")) {
+			if (option.equals("-nullMove")) {
+				config.nullMove = false;
+			} else if (option.equals("-lateMoveReductions")) {
+				config.lateMoveReductions = false;
+			} else if (option.equals("-futilityPruning")) {
+				config.futilityPruning = false;
+			} else if (option.startsWith("solverNodes=")) {
+				config.solverNodes = Integer.parseInt(option.substring("solverNodes=".length()));
+			} else {
+				throw new IllegalArgumentException("unknown option " + option);
+			}
+		}
+		return new EngineFactory() {
+			@Override
+			public SearchEngine create() {
+				AlphaBetaPruning engine = new AlphaBetaPruning(new Heuristic());
+				engine.setConfig(config);
+				return engine;
+			}
+		};
+	}
+
+	/**
+	 * Plays at most {@code maxGames} games (in pairs), and returns early when the SPRT decides. The
+	 * openings come from {@code seed}, so two runs play the same ones.
+	 */
+	public Sprt run(int maxGames, long seed) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "tournament");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		CompletionService<Double> results = new ExecutorCompletionService<Double>(executor);
+		Random random = new Random(seed);
+		int submitted = 0;
+		try {
+			for (; submitted + 1 < maxGames; submitted += 2) {
+				Position opening = randomOpening(random);
+				results.submit(game(opening, true));
+				results.submit(game(opening, false));
+			}
+			for (int i = 0; i < submitted; i++) {
+				sprt.add(results.take().get());
+				if (sprt.getGames() % REPORT_GAMES == 0) {
+					System.out.println(sprt);
+				}
+				if (sprt.status() != Sprt.CONTINUE) {
+					break;
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			// the games still running see the interrupt between two moves
+			executor.shutdownNow();
+		}
+		return sprt;
+	}
+
+	// a game of the candidate, as white or as black, scored for the candidate
+	private Callable<Double> game(final Position opening, final boolean candidateWhite) {
+		return new Callable<Double>() {
+			@Override
+			public Double call() throws InterruptedException {
+				SearchEngine white = candidateWhite ? candidate.create() : baseline.create();
+				SearchEngine black = candidateWhite ? baseline.create() : candidate.create();
+				double score = play(white, black, opening, millis);
+				return candidateWhite ? score : 1 - score;
+			}
+		};
+	}
+
+	// an opening that ends the game on the way is drawn again
+	static Position randomOpening(Random random) {
+		int[] moves = new int[Position.MAX_MOVES];
+		while (true) {
+			Position position = Position.initial();
+			for (int i = 0; i < OPENING_PLIES && position != null; i++) {
+				int count = position.generateMoves(moves);
+				position = count == 0 ? null : position.play(moves[random.nextInt(count)]);
+				if (position != null && AIHelper.checkOver(position)) {
+					position = null;
+				}
+			}
+			if (position != null) {
+				return position;
+			}
+		}
+	}
+
+	/**
+	 * Plays a game from {@code opening} with {@code millis} per move and returns white's score: 1
+	 * for a win, 0.5 for a draw (both sides connected at once, or a game too long) and 0 for a loss.
+	 */
+	static double play(SearchEngine white, SearchEngine black, Position opening, long millis) throws InterruptedException {
+		Position position = opening.copy();
+		int[] moves = new int[Position.MAX_MOVES];
+		for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			// a side that can't move has lost
+			if (position.generateMoves(moves) == 0) {
+				return position.getTurn() == Position.WHITE ? 0 : 1;
+			}
+			SearchEngine engine = position.getTurn() == Position.WHITE ? white : black;
+			position = position.play(engine.findBestMove(position, Deadline.after(millis)));
+			boolean whiteConnected = AIHelper.isConnected(position, Position.WHITE);
+			boolean blackConnected = AIHelper.isConnected(position, Position.BLACK);
+			if (whiteConnected || blackConnected) {
+				return whiteConnected && blackConnected ? 0.5 : whiteConnected ? 1 : 0;
+			}
+		}
+		return 0.5;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("usage: Tournament candidate baseline games millis-per-move [threads]");
+			return;
+		}
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		Tournament tournament = new Tournament(engine(args[0]), engine(args[1]), Long.parseLong(args[3]), threads,
+				new Sprt(ELO0, ELO1, ERROR_RATE, ERROR_RATE));
+		Sprt result = tournament.run(Integer.parseInt(args[2]), System.currentTimeMillis());
+		System.out.println(result);
+		int status = result.status();
+		System.out.println(status == Sprt.ACCEPT_H1 ? "H1 accepted: the candidate is stronger"
+				: status == Sprt.ACCEPT_H0 ? "H0 accepted: the candidate is not stronger" : "no decision");
+	}
+}
@@ -0,0 +1,69 @@
+package org.linesOfAction.worker;
+
+import org.linesOfAction.client.AlphaBetaPruning;
+import org.linesOfAction.client.Deadline;
+import org.linesOfAction.client.EngineSession;
+import org.linesOfAction.client.Position;
+import org.linesOfAction.client.SearchListener;
+import org.linesOfAction.client.SearchStatistics;
+import org.linesOfAction.client.WorkerProtocol;
+
+import com.google.gwt.webworker.client.DedicatedWorkerEntryPoint;
+import com.google.gwt.webworker.client.MessageEvent;
+import com.google.gwt.webworker.client.MessageHandler;
+
+/**
+ * The entry point of the engine worker (the LinesOfActionWorker module). It keeps one
+ * {@link EngineSession} per game and answers the messages of {@link WorkerProtocol}.<br>
+ * It ponders in slices, each one scheduled after the messages that came during the last, so a
+ * search or a new game stops the pondering without terminating the worker.
+ */
+public class EngineWorkerEntryPoint extends DedicatedWorkerEntryPoint implements MessageHandler {
+	// how long a search message may wait for the pondering
+	static final long PONDER_SLICE_MILLIS = 20;
+
+	private EngineSession session = EngineSession.alphaBeta();
+
+	@Override
+	public void onWorkerLoad() {
+		setOnMessage(this);
+	}
+
+	@Override
+	public void onMessage(MessageEvent event) {
+		String[] fields = WorkerProtocol.parse(event.getDataAsString());
+		if (WorkerProtocol.NEW_GAME.equals(fields[0])) {
+			session = EngineSession.alphaBeta();
+		} else if (WorkerProtocol.SEARCH.equals(fields[0])) {
+			final int id = WorkerProtocol.id(fields);
+			Position position = WorkerProtocol.position(fields);
+			((AlphaBetaPruning) session.getEngine()).setListener(new SearchListener() {
+				@Override
+				public void iterationComplete(SearchStatistics statistics) {
+					postMessage(WorkerProtocol.progress(id, statistics));
+				}
+			});
+			int move = session.findBestMove(position, Deadline.after(WorkerProtocol.millis(fields)));
+			postMessage(WorkerProtocol.bestMove(id, move));
+		} else if (WorkerProtocol.PONDER.equals(fields[0])) {
+			// the page doesn't listen to the pondering
+			((AlphaBetaPruning) session.getEngine()).setListener(null);
+			session.startPondering(WorkerProtocol.position(fields));
+			ponderLater(session);
+		}
+	}
+
+	// a new game or a search (which stops the pondering) ends the slices
+	private void ponderSlice(EngineSession pondering) {
+		if (pondering == session && pondering.ponder(PONDER_SLICE_MILLIS)) {
+			ponderLater(pondering);
+		}
+	}
+
+	private native void ponderLater(EngineSession pondering) /*-{
+		var entryPoint = this;
+		setTimeout($entry(function() {
+			entryPoint.@org.linesOfAction.worker.EngineWorkerEntryPoint::ponderSlice(Lorg/linesOfAction/client/EngineSession;)(pondering);
+		}), 0);
+	}-*/;
+}
@@ -0,0 +1,150 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class AlphaBetaPruningTest {
+	private final AlphaBetaPruning pruning = new AlphaBetaPruning(new Heuristic());
+
+	// helper function to provide preset state
+	private Map<String, Object> almostConnectedState(){
+		Map<String, Object> state = new HashMap<String, Object>();
+		for (int i=0;i<8;i++)
+			for (int j=0;j<8;j++)
+				state.put(String.valueOf(i+1)+Character.toString((char)('A'+j)),"0");
+		state.put("1A","B");state.put("1B","B");state.put("3D","B");
+		state.put("8H","W");state.put("6H","W");state.put("6F","W");
+		state.put("turn","B");
+		return state;
+		/*
+		 * The game board is like this: (O:empty, B:black, W:white)
+		 * 		A	B	C	D	E	F	G	H
+		 * 	8	O	O	O	O	O	O	O	W
+		 * 	7	O	O	O	O	O	O	O	O
+		 * 	6	O	O	O	O	O	W	O	W
+		 * 	5	O	O	O	O	O	O	O	O
+		 * 	4	O	O	O	O	O	O	O	O
+		 * 	3	O	O	O	B	O	O	O	O
+		 * 	2	O	O	O	O	O	O	O	O
+		 * 	1	B	B	O	O	O	O	O	O
+		 */
+	}
+
+	// helper function to check that move is one of the legal moves in position
+	private boolean isLegal(Position position, int move){
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		for (int i=0;i<count;i++)
+			if (moves[i] == move) return true;
+		return false;
+	}
+
+	@Test
+	public void testFindsConnectingMove(){
+		Position position = Position.fromState(almostConnectedState());
+		int move = pruning.findBestMove(position, 3, Deadline.never());
+		assertTrue(AIHelper.isConnected(position.play(move).getPieces(Position.BLACK)));
+	}
+
+	@Test
+	public void testFullWidthFindsConnectingMove(){
+		AlphaBetaPruning fullWidth = new AlphaBetaPruning(new Heuristic());
+		fullWidth.setConfig(SearchConfig.fullWidth());
+		Position position = Position.fromState(almostConnectedState());
+		int move = fullWidth.findBestMove(position, 3, Deadline.never());
+		assertTrue(AIHelper.isConnected(position.play(move).getPieces(Position.BLACK)));
+	}
+
+	@Test
+	public void testPlaysLegalBookMove(){
+		final int bookMove = Position.move(Position.square("1B"),Position.square("3B"));
+		AlphaBetaPruning withBook = new AlphaBetaPruning(new Heuristic());
+		withBook.setBook(new OpeningBook() {
+			@Override
+			public int probe(Position position) {
+				return bookMove;
+			}
+		});
+		assertEquals(bookMove, withBook.findBestMove(Position.initial().play(Position.move(Position.square("2A"),Position.square("2C"))), 3, Deadline.never()));
+		// white can't play a black move, so the book is ignored
+		Position position = Position.initial();
+		assertTrue(withBook.findBestMove(position, 1, Deadline.never()) != bookMove);
+	}
+
+	@Test
+	public void testExpiredDeadlineStillGivesLegalMove(){
+		Position position = Position.initial();
+		int move = pruning.findBestMove(position, AlphaBetaPruning.MAX_DEPTH, Deadline.after(0));
+		assertTrue(isLegal(position, move));
+		// the root position is left untouched
+		assertEquals(Position.initial(), position);
+	}
+
+	@Test
+	public void testResetSearchesLikeNewEngine(){
+		Position position = Position.initial();
+		pruning.findBestMove(position, 3, Deadline.never());
+		long nodes = pruning.getStatistics().getNodes();
+		pruning.findBestMove(position, 3, Deadline.never());
+		assertTrue(pruning.getStatistics().getNodes() < nodes);
+		pruning.reset();
+		pruning.findBestMove(position, 3, Deadline.never());
+		assertEquals(nodes, pruning.getStatistics().getNodes());
+	}
+
+	@Test
+	public void testStatisticsUseTheDeadlineClock(){
+		// every look at this clock is a second later
+		Deadline deadline = new Deadline(new Deadline.Clock() {
+			private long millis;
+
+			@Override
+			public long currentTimeMillis() {
+				return millis += 1000;
+			}
+		}, Long.MAX_VALUE);
+		pruning.findBestMove(Position.initial(), 3, deadline);
+		assertTrue(pruning.getStatistics().getMillis() >= 1000);
+	}
+
+	@Test
+	public void testStoppedDeadlineExpires(){
+		Deadline deadline = Deadline.never();
+		assertTrue(deadline.remainingMillis() > 0);
+		deadline.stop();
+		assertTrue(deadline.isExpired());
+		assertEquals(0, deadline.remainingMillis());
+	}
+
+	@Test
+	public void testReportsStatisticsOfEveryIteration(){
+		final List<SearchStatistics> iterations = new ArrayList<SearchStatistics>();
+		pruning.setListener(new SearchListener() {
+			@Override
+			public void iterationComplete(SearchStatistics statistics) {
+				iterations.add(statistics);
+			}
+		});
+		int move = pruning.findBestMove(Position.initial(), 3, Deadline.never());
+		assertEquals(3, iterations.size());
+		for (int i=0;i<3;i++)
+			assertEquals(i + 1, iterations.get(i).getDepth());
+		SearchStatistics last = pruning.getStatistics();
+		assertEquals(move, last.getBestMove());
+		assertEquals(move, last.getPv()[0]);
+		assertTrue(last.getNodes() > 0 && last.getQuiescenceNodes() > 0);
+		assertTrue(last.getFirstMoveCutoffRate() > 0 && last.getFirstMoveCutoffRate() <= 1);
+		assertTrue(last.toJson().startsWith("{\"depth\":3,"));
+	}
+}
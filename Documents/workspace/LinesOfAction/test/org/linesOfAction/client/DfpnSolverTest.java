@@ -0,0 +1,39 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class DfpnSolverTest {
+	private final DfpnSolver solver = new DfpnSolver(12);
+
+	@Test
+	public void testProvesConnection(){
+		Position position = TestPositions.almostConnected();
+		assertEquals(DfpnSolver.WIN, solver.solve(position, 10000));
+		assertTrue(AIHelper.isConnected(position.play(solver.getBestMove()).getPieces(Position.BLACK)));
+	}
+
+	@Test
+	public void testConnectedOpponentIsALoss(){
+		Position position = TestPositions.almostConnected();
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		for (int i=0;i<count;i++){
+			Position next = position.play(moves[i]);
+			if (AIHelper.isConnected(next.getPieces(Position.BLACK)))
+				assertEquals(DfpnSolver.LOSS, solver.solve(next, 10000));
+		}
+	}
+
+	@Test
+	public void testBudgetGivesUnknown(){
+		assertEquals(DfpnSolver.UNKNOWN, solver.solve(Position.initial(), 100));
+		assertTrue(solver.getNodes() > 100);
+	}
+}
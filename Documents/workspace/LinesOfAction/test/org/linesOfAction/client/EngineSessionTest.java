@@ -0,0 +1,73 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class EngineSessionTest {
+	private final EngineSession session = EngineSession.alphaBeta();
+
+	private Position ponder(){
+		Position position = Position.initial();
+		Position afterMove = position.play(session.findBestMove(position, Deadline.after(50)));
+		session.startPondering(afterMove);
+		while (session.getPonderPosition() == null)
+			assertTrue(session.ponder(20));
+		for (int i=0;i<3;i++)
+			assertTrue(session.ponder(50));
+		return afterMove;
+	}
+
+	@Test
+	public void testPonderHitPlaysPonderedMove(){
+		ponder();
+		Position guess = session.getPonderPosition();
+		// no time left, the pondered move is played
+		int move = session.findBestMove(guess, Deadline.after(0));
+		assertEquals(1, session.getPonderHits());
+		assertTrue(move != 0);
+		assertFalse(session.isPondering());
+	}
+
+	@Test
+	public void testPonderHitEndsIncrementalSearch(){
+		ponder();
+		Position guess = session.getPonderPosition();
+		IncrementalSearch search = session.startIncremental(guess, Deadline.after(0));
+		assertEquals(1, session.getPonderHits());
+		assertTrue(search.isDone());
+		assertTrue(search.getBestMove() != 0);
+	}
+
+	@Test
+	public void testPonderSearchGoesOnAcrossSlices(){
+		ponder();
+		AlphaBetaPruning engine = (AlphaBetaPruning) session.getEngine();
+		int depth = engine.getStatistics().getDepth();
+		for (int i=0;i<5;i++){
+			assertTrue(session.ponder(20));
+			assertTrue(engine.getStatistics().getDepth() >= depth);
+			depth = engine.getStatistics().getDepth();
+		}
+		assertTrue(depth > 0);
+	}
+
+	@Test
+	public void testPonderMissSearchesAgain(){
+		Position afterMove = ponder();
+		int[] replies = new int[Position.MAX_MOVES];
+		int count = afterMove.generateMoves(replies);
+		Position other = null;
+		for (int i=0;i<count && other == null;i++)
+			if (!afterMove.play(replies[i]).equals(session.getPonderPosition())) other = afterMove.play(replies[i]);
+		session.findBestMove(other, Deadline.after(50));
+		assertEquals(0, session.getPonderHits());
+		assertFalse(session.isPondering());
+	}
+}
@@ -0,0 +1,65 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class IncrementalSearchTest {
+	private final Heuristic heuristic = new Heuristic();
+
+	private Position middlegame(){
+		Position position = Position.initial();
+		int[] moves = new int[Position.MAX_MOVES];
+		for (int i=0;i<6;i++){
+			position.generateMoves(moves);
+			position.makeMove(moves[i]);
+		}
+		return position.copy();
+	}
+
+	@Test
+	public void testSlicedSearchMatchesAlphaBetaPruning() {
+		Position position = middlegame();
+		AlphaBetaPruning whole = new AlphaBetaPruning(heuristic, new TranspositionTable(16));
+		int move = whole.findBestMove(position, 4, Deadline.never());
+		IncrementalSearch sliced = new IncrementalSearch(heuristic, new TranspositionTable(16));
+		sliced.start(position, 4, Deadline.never());
+		while (sliced.step(1)) {
+		}
+		assertEquals(move, sliced.getBestMove());
+		assertEquals(whole.getScore(), sliced.getScore());
+	}
+
+	@Test
+	public void testResumesWhereTheSliceStopped() {
+		Position position = middlegame();
+		IncrementalSearch whole = new IncrementalSearch(heuristic, new TranspositionTable(16));
+		int move = whole.findBestMove(position, 4, Deadline.never());
+		IncrementalSearch sliced = new IncrementalSearch(heuristic, new TranspositionTable(16));
+		sliced.start(position, 4, Deadline.never());
+		int slices = 0;
+		while (sliced.step(0)) {
+			slices++;
+		}
+		assertTrue(slices > 1);
+		assertTrue(sliced.isDone());
+		assertEquals(move, sliced.getBestMove());
+		assertEquals(whole.getStatistics().getNodes(), sliced.getStatistics().getNodes());
+		assertEquals(whole.getStatistics().getQuiescenceNodes(), sliced.getStatistics().getQuiescenceNodes());
+	}
+
+	@Test
+	public void testExpiredDeadlineEndsSearch() {
+		IncrementalSearch search = new IncrementalSearch(heuristic, new TranspositionTable(16));
+		search.start(middlegame(), Deadline.after(0));
+		while (search.step(5)) {
+		}
+		assertFalse(search.getBestMove() == 0);
+	}
+}
@@ -0,0 +1,48 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class MonteCarloTreeSearchTest {
+	private final MonteCarloTreeSearch search = new MonteCarloTreeSearch(new Heuristic(), new Random(1));
+
+	@Test
+	public void testSolverFindsConnectingMove(){
+		Position position = TestPositions.almostConnected();
+		int move = search.findBestMove(position, Deadline.never());
+		assertTrue(AIHelper.isConnected(position.play(move).getPieces(Position.BLACK)));
+		// the search stopped because the root was proved: white, who moved into it, loses
+		assertEquals(MonteCarloTreeSearch.LOSS, search.getRootResult());
+	}
+
+	@Test
+	public void testIterationLimit(){
+		search.setMaxIterations(200);
+		Position position = Position.initial();
+		int move = search.findBestMove(position, Deadline.never());
+		assertEquals(200, search.getIterations());
+		assertTrue(move != 0);
+		assertEquals(Position.initial(), position);
+	}
+
+	@Test
+	public void testKeepsSubtreeOfPlayedMove(){
+		search.setMaxIterations(500);
+		Position position = Position.initial();
+		int move = search.findBestMove(position, Deadline.never());
+		int visits = search.getChildVisits(move);
+		assertTrue(visits > 0);
+		search.setMaxIterations(0);
+		search.findBestMove(position.play(move), Deadline.never());
+		// the new root is the node of the played move, with the visits of the first search
+		assertEquals(visits, search.getRootVisits());
+	}
+}
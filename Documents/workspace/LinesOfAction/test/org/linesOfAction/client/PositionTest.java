@@ -0,0 +1,215 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class PositionTest {
+
+	// helper function to provide preset state
+	private Map<String, Object> verticalMoveState(){
+		Map<String, Object> state = new HashMap<String, Object>();
+		for (int i=0;i<8;i++)
+			for (int j=0;j<8;j++)
+				state.put(String.valueOf(i+1)+Character.toString((char)('A'+j)),"0");
+		state.put("1A","W");state.put("1H","B");state.put("3D","B");state.put("6D","B");state.put("8D","W");
+		state.put("turn","B");
+		return state;
+		/*
+		 * The game board is like this: (O:empty, B:black, W:white)
+		 * 		A	B	C	D	E	F	G	H
+		 * 	8	O	O	O	W	O	O	O	O
+		 * 	7	O	O	O	O	O	O	O	O
+		 * 	6	O	O	O	B	O	O	O	O
+		 * 	5	O	O	O	O	O	O	O	O
+		 * 	4	O	O	O	O	O	O	O	O
+		 * 	3	O	O	O	B	O	O	O	O
+		 * 	2	O	O	O	O	O	O	O	O
+		 * 	1	W	O	O	O	O	O	O	B
+		 */
+	}
+
+	// helper function to get the destinations of the piece on origin
+	private TreeSet<String> destinations(Position position, String origin){
+		TreeSet<String> ret = new TreeSet<String>();
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		for (int i=0;i<count;i++)
+			if (Position.squareName(Position.moveFrom(moves[i])).equals(origin))
+				ret.add(Position.squareName(Position.moveTo(moves[i])));
+		return ret;
+	}
+
+	@Test
+	public void testEmptyStateIsInitialPosition(){
+		Position position = Position.fromState(new HashMap<String, Object>());
+		assertEquals(Position.initial(), position);
+		assertEquals(Position.WHITE, position.getTurn());
+		assertEquals(Position.BLACK, position.pieceAt(Position.square("1B")));
+		assertEquals(Position.WHITE, position.pieceAt(Position.square("2A")));
+		assertEquals(Position.EMPTY, position.pieceAt(Position.square("1A")));
+	}
+
+	@Test
+	public void testStateRoundTrip(){
+		Map<String, Object> state = verticalMoveState();
+		assertEquals(state, Position.fromState(state).toState());
+	}
+
+	@Test
+	public void testInitialMoveCount(){
+		assertEquals(92, Position.initial().generateMoves(new int[Position.MAX_MOVES]));
+	}
+
+	@Test
+	public void testDestinations(){
+		// at most 3 squares vertically (3 pieces on the line), jumping over 3D but not beyond 8D
+		Position position = Position.fromState(verticalMoveState());
+		TreeSet<String> expected = new TreeSet<String>();
+		expected.add("4D");expected.add("5D");expected.add("7D");expected.add("8D");
+		expected.add("6C");expected.add("6E");
+		expected.add("5C");expected.add("7E");expected.add("7C");expected.add("5E");
+		assertEquals(expected, destinations(position,"6D"));
+	}
+
+	@Test
+	public void testPlayCapture(){
+		Position position = Position.fromState(verticalMoveState());
+		Position next = position.play(Position.move(Position.square("6D"),Position.square("8D")));
+		assertEquals(Position.EMPTY, next.pieceAt(Position.square("6D")));
+		assertEquals(Position.BLACK, next.pieceAt(Position.square("8D")));
+		assertEquals(1, Long.bitCount(next.getPieces(Position.WHITE)));
+		assertEquals(Position.WHITE, next.getTurn());
+		// the original position is unchanged
+		assertEquals(Position.BLACK, position.pieceAt(Position.square("6D")));
+	}
+
+	@Test
+	public void testGeneratedCapturesAreFlagged(){
+		Position position = Position.fromState(verticalMoveState());
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(Position.square("6D"),moves,0);
+		for (int i=0;i<count;i++){
+			int to = Position.moveTo(moves[i]);
+			assertEquals(position.pieceAt(to) == Position.WHITE, Position.isCapture(moves[i]));
+		}
+		assertTrue(Position.isCapture(Position.move(Position.square("6D"),Position.square("8D")) | Position.CAPTURE));
+	}
+
+	@Test
+	public void testTacticalMovesCaptureOrJoinGroups(){
+		Position position = Position.fromState(verticalMoveState());
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		int[] tactical = new int[Position.MAX_MOVES];
+		int tacticalCount = position.generateTacticalMoves(tactical);
+		int expected = 0;
+		int before = QuadCounts.eulerSum(position.getPieces(Position.BLACK));
+		for (int i=0;i<count;i++){
+			int after = QuadCounts.eulerSum(position.play(moves[i]).getPieces(Position.BLACK));
+			if (Position.isCapture(moves[i]) || after < before) expected++;
+		}
+		assertEquals(expected, tacticalCount);
+	}
+
+	@Test
+	public void testNullMovePassesTheTurn(){
+		Position position = Position.initial();
+		position.makeNullMove();
+		assertEquals(Position.BLACK, position.getTurn());
+		assertEquals(Zobrist.hash(position.getPieces(Position.BLACK),position.getPieces(Position.WHITE),Position.BLACK), position.getHash());
+		position.unmakeNullMove();
+		assertEquals(Position.initial(), position);
+		assertEquals(0, position.getPly());
+	}
+
+	@Test
+	public void testMakeUnmakeRestoresPosition(){
+		Position position = Position.fromState(verticalMoveState());
+		Position before = position.copy();
+		int capture = Position.move(Position.square("6D"),Position.square("8D"));
+		int quiet = Position.move(Position.square("1A"),Position.square("2A"));
+		position.makeMove(capture);
+		position.makeMove(quiet);
+		assertEquals(2, position.getPly());
+		position.unmakeMove(quiet);
+		position.unmakeMove(capture);
+		assertEquals(before, position);
+		assertEquals(0, position.getPly());
+	}
+
+	@Test
+	public void testLineCountsAreIncremental(){
+		Position position = Position.fromState(verticalMoveState());
+		int[] moves = new int[Position.MAX_MOVES];
+		int[] expected = new int[Position.MAX_MOVES];
+		int capture = Position.move(Position.square("6D"),Position.square("8D"));
+		int quiet = Position.move(Position.square("1A"),Position.square("2B"));
+		position.makeMove(capture);
+		position.makeMove(quiet);
+		int count = position.generateMoves(moves);
+		assertEquals(Position.fromState(position.toState()).generateMoves(expected), count);
+		for (int i=0;i<count;i++)
+			assertEquals(expected[i], moves[i]);
+		position.unmakeMove(quiet);
+		position.unmakeMove(capture);
+		assertEquals(destinations(Position.fromState(verticalMoveState()),"6D"), destinations(position,"6D"));
+	}
+
+	@Test
+	public void testHashIsIncremental(){
+		Position position = Position.fromState(verticalMoveState());
+		long before = position.getHash();
+		int capture = Position.move(Position.square("6D"),Position.square("8D"));
+		position.makeMove(capture);
+		assertEquals(Position.fromState(position.toState()).getHash(), position.getHash());
+		position.unmakeMove(capture);
+		assertEquals(before, position.getHash());
+	}
+
+	@Test
+	public void testEulerNumber(){
+		Position position = Position.fromState(verticalMoveState());
+		assertEquals(3, position.getEulerNumber(Position.BLACK));
+		assertFalse(position.mayBeConnected(Position.BLACK));
+		// a ring of 8 black pieces is one group with one hole
+		long ring = 0L;
+		for (int i=0;i<3;i++)
+			for (int j=0;j<3;j++)
+				if (i != 1 || j != 1) ring |= 1L << Position.square(2+i,2+j);
+		Position ringPosition = new Position(ring, 1L << Position.square(7,7), Position.BLACK);
+		assertEquals(0, ringPosition.getEulerNumber(Position.BLACK));
+		assertTrue(ringPosition.mayBeConnected(Position.BLACK));
+		// and it stays up to date when a legal move opens the ring, and when the move is unmade
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = ringPosition.generateMoves(moves);
+		int opening = 0;
+		for (int i=0;i<count && opening == 0;i++)
+			if (ringPosition.play(moves[i]).getEulerNumber(Position.BLACK) == 1) opening = moves[i];
+		assertTrue(opening != 0);
+		ringPosition.makeMove(opening);
+		assertEquals(QuadCounts.eulerSum(ringPosition.getPieces(Position.BLACK)), 4 * ringPosition.getEulerNumber(Position.BLACK));
+		assertEquals(1, ringPosition.getEulerNumber(Position.BLACK));
+		ringPosition.unmakeMove(opening);
+		assertEquals(0, ringPosition.getEulerNumber(Position.BLACK));
+	}
+
+	@Test
+	public void testCheckOver(){
+		Position position = Position.fromState(verticalMoveState());
+		assertFalse(AIHelper.checkOver(position));
+		assertEquals(3, AIHelper.countGroups(position.getPieces(Position.BLACK)));
+		// white 8D is captured, the last white piece on 1A is connected
+		assertTrue(AIHelper.checkOver(position.play(Position.move(Position.square("6D"),Position.square("8D")))));
+	}
+}
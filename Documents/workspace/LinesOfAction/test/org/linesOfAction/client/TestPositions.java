@@ -0,0 +1,13 @@
+package org.linesOfAction.client;
+
+/**
+ * Positions shared by the engine tests.
+ */
+class TestPositions {
+	// black: 1A 1B 3D, white: 8H 6H 6F, black to move (3D to 2C or 2B connects)
+	static Position almostConnected(){
+		long black = Position.bit(Position.square("1A")) | Position.bit(Position.square("1B")) | Position.bit(Position.square("3D"));
+		long white = Position.bit(Position.square("8H")) | Position.bit(Position.square("6H")) | Position.bit(Position.square("6F"));
+		return new Position(black,white,Position.BLACK);
+	}
+}
@@ -0,0 +1,66 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class TranspositionTableTest {
+	// keys 2, 4 and 6 all go to the first bucket of a table with two buckets
+	private TranspositionTable table(TranspositionTable.Replacement replacement){
+		return new TranspositionTable(new ArrayStorage(2 * TranspositionTable.BUCKET_SIZE), replacement);
+	}
+
+	@Test
+	public void testStoreAndProbe(){
+		TranspositionTable table = new TranspositionTable(4);
+		table.store(12345L, 7, TranspositionTable.LOWER, -24, Position.move(3,11));
+		long data = table.probe(12345L);
+		assertEquals(7, TranspositionTable.depth(data));
+		assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+		assertEquals(-24, TranspositionTable.score(data));
+		assertEquals(Position.move(3,11), TranspositionTable.move(data));
+		assertEquals(0L, table.probe(54321L));
+		table.clear();
+		assertEquals(0L, table.probe(12345L));
+	}
+
+	@Test
+	public void testTwoTierKeepsTheDeepestEntry(){
+		TranspositionTable table = table(TranspositionTable.Replacement.TWO_TIER);
+		table.store(2L, 9, TranspositionTable.EXACT, 1, 1);
+		table.store(4L, 3, TranspositionTable.EXACT, 2, 2);
+		table.store(6L, 2, TranspositionTable.EXACT, 3, 3);
+		assertEquals(9, TranspositionTable.depth(table.probe(2L)));
+		assertEquals(0L, table.probe(4L));
+		assertEquals(2, TranspositionTable.depth(table.probe(6L)));
+		// a shallower search of a stored position doesn't replace it
+		table.store(2L, 1, TranspositionTable.UPPER, 5, 5);
+		assertEquals(9, TranspositionTable.depth(table.probe(2L)));
+	}
+
+	@Test
+	public void testDepthPreferredReplacesTheShallowerEntry(){
+		TranspositionTable table = table(TranspositionTable.Replacement.DEPTH_PREFERRED);
+		table.store(2L, 3, TranspositionTable.EXACT, 1, 1);
+		table.store(4L, 8, TranspositionTable.EXACT, 2, 2);
+		table.store(6L, 1, TranspositionTable.EXACT, 3, 3);
+		assertEquals(0L, table.probe(2L));
+		assertEquals(8, TranspositionTable.depth(table.probe(4L)));
+		assertEquals(1, TranspositionTable.depth(table.probe(6L)));
+	}
+
+	@Test
+	public void testAlwaysReplaceKeepsTheNewestEntries(){
+		TranspositionTable table = table(TranspositionTable.Replacement.ALWAYS_REPLACE);
+		table.store(2L, 9, TranspositionTable.EXACT, 1, 1);
+		table.store(4L, 8, TranspositionTable.EXACT, 2, 2);
+		table.store(6L, 1, TranspositionTable.EXACT, 3, 3);
+		assertEquals(0L, table.probe(2L));
+		assertEquals(8, TranspositionTable.depth(table.probe(4L)));
+		assertEquals(1, TranspositionTable.depth(table.probe(6L)));
+	}
+}
@@ -0,0 +1,51 @@
+package org.linesOfAction.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class WorkerProtocolTest {
+	@Test
+	public void testSearchMessageKeepsPosition() {
+		Position position = Position.initial().play(Position.move(Position.square(1, 0), Position.square(3, 2)));
+		String[] fields = WorkerProtocol.parse(WorkerProtocol.search(7, position, 1500));
+		assertEquals(WorkerProtocol.SEARCH, fields[0]);
+		assertEquals(7, WorkerProtocol.id(fields));
+		assertEquals(position, WorkerProtocol.position(fields));
+		assertEquals(1500, WorkerProtocol.millis(fields));
+	}
+
+	@Test
+	public void testPonderMessageKeepsPosition() {
+		Position position = Position.initial().play(Position.move(Position.square(0, 1), Position.square(2, 1)));
+		String[] fields = WorkerProtocol.parse(WorkerProtocol.ponder(4, position));
+		assertEquals(WorkerProtocol.PONDER, fields[0]);
+		assertEquals(4, WorkerProtocol.id(fields));
+		assertEquals(position, WorkerProtocol.position(fields));
+	}
+
+	@Test
+	public void testBestMoveMessageKeepsCaptureFlag() {
+		int move = Position.move(Position.square(0, 1), Position.square(1, 0)) | Position.CAPTURE;
+		String[] fields = WorkerProtocol.parse(WorkerProtocol.bestMove(3, move));
+		assertEquals(WorkerProtocol.BEST_MOVE, fields[0]);
+		assertEquals(3, WorkerProtocol.id(fields));
+		assertEquals(move, WorkerProtocol.move(fields));
+	}
+
+	@Test
+	public void testProgressMessageCarriesStatistics() {
+		AlphaBetaPruning pruning = new AlphaBetaPruning(new Heuristic());
+		pruning.findBestMove(Position.initial(), 2, Deadline.never());
+		SearchStatistics statistics = pruning.getStatistics();
+		String[] fields = WorkerProtocol.parse(WorkerProtocol.progress(5, statistics));
+		assertEquals(6, fields.length);
+		assertEquals(WorkerProtocol.PROGRESS, fields[0]);
+		assertEquals(2, Integer.parseInt(fields[2]));
+		assertEquals(statistics.toJson(), fields[5]);
+	}
+}
@@ -0,0 +1,41 @@
+package org.linesOfAction.server;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.linesOfAction.client.Position;
+
+@RunWith(JUnit4.class)
+
+public class PerftTest {
+	@Test
+	public void testGeneratorFollowsTheRules(){
+		assertEquals(new Perft(1,0).perft(Position.initial(),3), Perft.verify(Position.initial(),3));
+	}
+
+	@Test
+	public void testSplitAndHashedCountsAgree(){
+		Perft sequential = new Perft(1,0);
+		Perft parallel = new Perft(4,16);
+		assertEquals(sequential.perft(Position.initial(),4), parallel.perft(Position.initial(),4));
+		// the second run comes from the table
+		assertEquals(sequential.perft(Position.initial(),4), parallel.perft(Position.initial(),4));
+		sequential.shutdown();
+		parallel.shutdown();
+	}
+
+	@Test
+	public void testDivideSumsToPerft(){
+		Perft perft = new Perft(2,0);
+		Position position = Position.initial();
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		long total = 0;
+		for (long count2 : perft.divide(position,moves,count,3))
+			total += count2;
+		assertEquals(perft.perft(position,3), total);
+		perft.shutdown();
+	}
+}
@@ -0,0 +1,36 @@
+package org.linesOfAction.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+
+public class SprtTest {
+	@Test
+	public void testEloOfExpectedScore(){
+		assertEquals(0.5, Sprt.expectedScore(0), 1e-9);
+		assertEquals(100, Sprt.elo(Sprt.expectedScore(100)), 1e-6);
+	}
+
+	@Test
+	public void testEvenMatchAcceptsH0(){
+		Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+		for (int i=0;i<100000 && sprt.status() == Sprt.CONTINUE;i++)
+			sprt.add(i % 3 == 0 ? 0.5 : i % 3 == 1 ? 1 : 0);
+		assertEquals(Sprt.ACCEPT_H0, sprt.status());
+		assertEquals(0, sprt.elo(), 1);
+	}
+
+	@Test
+	public void testStrongerCandidateAcceptsH1(){
+		Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+		for (int i=0;i<100000 && sprt.status() == Sprt.CONTINUE;i++)
+			sprt.add(i % 5 < 3 ? 1 : 0);
+		assertEquals(Sprt.ACCEPT_H1, sprt.status());
+		assertTrue(sprt.elo() - sprt.eloError() > 0);
+	}
+}
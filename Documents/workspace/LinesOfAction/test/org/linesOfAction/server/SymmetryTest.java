@@ -0,0 +1,37 @@
+package org.linesOfAction.server;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.linesOfAction.client.Position;
+
+@RunWith(JUnit4.class)
+
+public class SymmetryTest {
+	@Test
+	public void testInitialPositionIsSymmetric(){
+		for (int symmetry=0;symmetry<Symmetry.COUNT;symmetry++)
+			assertEquals(Position.initial(), Symmetry.position(symmetry,Position.initial()));
+	}
+
+	@Test
+	public void testMovesFollowThePosition(){
+		Position position = Position.initial();
+		int[] moves = new int[Position.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		for (int symmetry=0;symmetry<Symmetry.COUNT;symmetry++)
+			for (int i=0;i<count;i++)
+				assertEquals(Symmetry.position(symmetry,position.play(moves[i])),
+						Symmetry.position(symmetry,position).play(Symmetry.move(symmetry,moves[i])));
+	}
+
+	@Test
+	public void testMirroredPositionsShareTheCanonicalForm(){
+		Position position = Position.initial().play(Position.move(Position.square("2A"),Position.square("2C")));
+		Position mirrored = Symmetry.position(1,position);
+		assertEquals(Symmetry.position(Symmetry.canonical(position),position),
+				Symmetry.position(Symmetry.canonical(mirrored),mirrored));
+	}
+}
@@ -0,0 +1,29 @@
+package org.linesOfAction.server;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.linesOfAction.client.AIHelper;
+
+@RunWith(JUnit4.class)
+
+public class TournamentTest {
+	@Test
+	public void testGameEndsWithAResult() throws InterruptedException {
+		Tournament.EngineFactory engine = Tournament.engine("alphabeta:solverNodes=0");
+		double score = Tournament.play(engine.create(), engine.create(), Tournament.randomOpening(new Random(1)), 5);
+		assertTrue(score == 0 || score == 0.5 || score == 1);
+	}
+
+	@Test
+	public void testRandomOpeningIsNotOver(){
+		Random random = new Random(2);
+		for (int i=0;i<100;i++)
+			assertFalse(AIHelper.checkOver(Tournament.randomOpening(random)));
+	}
+}